@@ -0,0 +1,66 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one tick of an arena with many snakes and many pieces of food ({@link GameState#step(int[])}).
+ * The cost should not depend on the number of pieces of food: they are found through the cells of the board.
+ * Every snake goes around a square next to its starting position, so the match never ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaBenchmark {
+
+    @Param({"1000", "2000"})
+    int boardSize; // Columns and rows of the board
+
+    @Param({"16", "128"})
+    int players; // Number of snakes
+
+    @Param({"16", "1024"})
+    int snakeLength; // Length of each snake
+
+    @Param({"1", "64"})
+    int foodsPerSnake; // Pieces of food on the board for each snake (64 = a food storm)
+
+    GameState state;
+    int[] inputs;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = new GameState(boardSize, boardSize, players, players * foodsPerSnake, 42);
+        inputs = new int[players];
+        for (int player = 1; player <= players; player++) {
+            Snake snake = state.getSnake(player);
+            while (snake.size < snakeLength) {
+                snake.grow();
+            }
+        }
+    }
+
+    @Benchmark
+    public long step() {
+        for (int i = 0; i < players; i++) {
+            inputs[i] = AllocationProbe.aroundStart(state, i);
+        }
+        state.step(inputs);
+        return state.getTick();
+    }
+}
@@ -0,0 +1,48 @@
+package com.mygdx.game;
+
+/**
+ * Helpers shared by the benchmarks to build boards with long snakes.
+ */
+final class BenchmarkBoards {
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * Grow a snake and move it along a zigzag through its rows of the board, so that its body
+     * is stretched out (with straight parts and curves) instead of piled on its tail.
+     *
+     * @param snake  The snake.
+     * @param length Length wanted for the snake.
+     * @param x0     First column of the zigzag.
+     * @param x1     Last column of the zigzag.
+     */
+    static void stretch(Snake snake, int length, int x0, int x1) {
+        while (snake.size < length) {
+            snake.grow();
+        }
+        // Each segment piled on the tail is unrolled by one move
+        for (int i = 0; i < length; i++) {
+            snake.updatePlayer(zigzag(snake, x0, x1));
+        }
+    }
+
+    /**
+     * Input that makes a snake sweep its rows from left to right and back, going up one row at each end.
+     *
+     * @param snake The snake.
+     * @param x0    First column of the zigzag.
+     * @param x1    Last column of the zigzag.
+     * @return Mask of the key to be pressed.
+     */
+    static int zigzag(Snake snake, int x0, int x1) {
+        int x = snake.getHeadX();
+        if (snake.dy != 0) { // Just went up: turn back
+            return x >= x1 ? Snake.LEFT : Snake.RIGHT;
+        }
+        if ((snake.dx > 0 && x >= x1) || (snake.dx < 0 && x <= x0)) {
+            return Snake.UP;
+        }
+        return 0;
+    }
+}
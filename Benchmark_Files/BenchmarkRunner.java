@@ -0,0 +1,33 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the benchmarks with the GC profiler (allocation rate) and writes the results as JSON,
+ * so runs before and after a change can be compared.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * @param args Optional name of the JSON file (default benchmark-results.json)
+     *             and optional regular expression to choose the benchmarks (default: all).
+     * @throws RunnerException If JMH fails to run the benchmarks.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String output = args.length > 0 ? args[0] : "benchmark-results.json";
+        String include = args.length > 1 ? args[1] : "com\\.mygdx\\.game\\..*Benchmark";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one tick of an arena played by {@link PathController} bots: the inputs of every bot, then the step.
+ * A new arena is set up for each iteration, so most of the snakes are still playing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotBenchmark {
+
+    @Param({"300", "1000"})
+    int boardSize; // Columns and rows of the board
+
+    @Param({"16", "256"})
+    int players; // Number of bots
+
+    GameState state;
+    Controller[] bots;
+    int[] inputs;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = new GameState(boardSize, boardSize, players, players, 42);
+        bots = new Controller[players];
+        for (int i = 0; i < players; i++) {
+            bots[i] = new PathController();
+        }
+        inputs = new int[players];
+    }
+
+    @Benchmark
+    public long tick() {
+        if (state.isOver()) { // Rarely reached within an iteration: start a new arena
+            setUp();
+        }
+        for (int i = 0; i < players; i++) {
+            inputs[i] = state.getGameEnd(i + 1) == 0 ? bots[i].input(state, i + 1) : 0;
+        }
+        state.step(inputs);
+        return state.getTick();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking the collisions of every snake of a board ({@link Snake#checkGameEnd()}).
+ * Each snake is stretched along its own band of rows, so no snake touches another.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    @Param({"300", "1000"})
+    int boardSize; // Columns and rows of the board
+
+    @Param({"2", "16", "128"})
+    int snakes; // Number of snakes on the board
+
+    @Param({"16", "1024"})
+    int snakeLength; // Length of each snake (limited to what fits in its band of rows)
+
+    Snake[] all;
+
+    @Setup
+    public void setUp() {
+        Board board = new Board(boardSize, boardSize);
+        int band = boardSize / snakes; // Rows of each snake
+        int length = Math.min(snakeLength, (band - 1) * boardSize);
+
+        all = new Snake[snakes];
+        for (int i = 0; i < snakes; i++) {
+            all[i] = new Snake(i + 1, board, 0, i * band, 1);
+            BenchmarkBoards.stretch(all[i], length, 0, boardSize - 1);
+        }
+    }
+
+    @Benchmark
+    public int checkAll() {
+        int crashed = 0;
+        for (Snake snake : all) {
+            crashed += snake.checkGameEnd();
+        }
+        return crashed;
+    }
+}
@@ -0,0 +1,199 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Matrix4;
+
+/**
+ * Batch that does not draw anything: it only counts the sprites and sums their positions,
+ * so the benchmarks can measure the cost of choosing the sprites without a GPU.
+ */
+public class CountingBatch implements Batch {
+
+    final Color color = new Color(1, 1, 1, 1);
+    final Matrix4 projection = new Matrix4();
+    final Matrix4 transform = new Matrix4();
+
+    int sprites; // Number of sprites drawn
+    float checksum; // Sum of the positions of the sprites, so the drawing cannot be optimized away
+    boolean drawing;
+
+    @Override
+    public void draw(TextureRegion region, float x, float y) {
+        sprites++;
+        checksum += x + y;
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y) {
+        sprites++;
+        checksum += x + y;
+    }
+
+    @Override
+    public void begin() {
+        drawing = true;
+    }
+
+    @Override
+    public void end() {
+        drawing = false;
+    }
+
+    @Override
+    public void setColor(Color tint) {
+    }
+
+    @Override
+    public void setColor(float r, float g, float b, float a) {
+    }
+
+    @Override
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public void setPackedColor(float packedColor) {
+    }
+
+    @Override
+    public float getPackedColor() {
+        return 0;
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation, int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+        draw(texture, x, y);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height, int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+        draw(texture, x, y);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {
+        draw(texture, x, y);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height, float u, float v, float u2, float v2) {
+        draw(texture, x, y);
+    }
+
+    @Override
+    public void draw(Texture texture, float x, float y, float width, float height) {
+        draw(texture, x, y);
+    }
+
+    @Override
+    public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+        sprites += count / 20;
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float width, float height) {
+        draw(region, x, y);
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation) {
+        draw(region, x, y);
+    }
+
+    @Override
+    public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation, boolean clockwise) {
+        draw(region, x, y);
+    }
+
+    @Override
+    public void draw(TextureRegion region, float width, float height, Affine2 transform) {
+        sprites++;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void disableBlending() {
+    }
+
+    @Override
+    public void enableBlending() {
+    }
+
+    @Override
+    public void setBlendFunction(int srcFunc, int dstFunc) {
+    }
+
+    @Override
+    public void setBlendFunctionSeparate(int srcFuncColor, int dstFuncColor, int srcFuncAlpha, int dstFuncAlpha) {
+    }
+
+    @Override
+    public int getBlendSrcFunc() {
+        return 0;
+    }
+
+    @Override
+    public int getBlendDstFunc() {
+        return 0;
+    }
+
+    @Override
+    public int getBlendSrcFuncAlpha() {
+        return 0;
+    }
+
+    @Override
+    public int getBlendDstFuncAlpha() {
+        return 0;
+    }
+
+    @Override
+    public Matrix4 getProjectionMatrix() {
+        return projection;
+    }
+
+    @Override
+    public Matrix4 getTransformMatrix() {
+        return transform;
+    }
+
+    @Override
+    public void setProjectionMatrix(Matrix4 projection) {
+    }
+
+    @Override
+    public void setTransformMatrix(Matrix4 transform) {
+    }
+
+    @Override
+    public void setShader(ShaderProgram shader) {
+    }
+
+    @Override
+    public ShaderProgram getShader() {
+        return null;
+    }
+
+    @Override
+    public boolean isBlendingEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isDrawing() {
+        return drawing;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
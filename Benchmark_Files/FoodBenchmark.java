@@ -0,0 +1,57 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of spawning a piece of food ({@link Food#renew(Board, Random)}) as the board fills up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodBenchmark {
+
+    @Param({"30", "300", "1000"})
+    int boardSize; // Columns and rows of the board
+
+    @Param({"0.1", "0.9", "0.999"})
+    double occupancy; // Fraction of the cells taken by snakes
+
+    Board board;
+    Random random;
+    Food food;
+
+    @Setup
+    public void setUp() {
+        board = new Board(boardSize, boardSize);
+        random = new Random(42);
+        for (int x = 0; x < boardSize; x++) {
+            for (int y = 0; y < boardSize; y++) {
+                if (random.nextDouble() < occupancy) {
+                    board.add(x, y, 1);
+                }
+            }
+        }
+        food = new Food(0, FoodCatalog.DEFAULT, board, random);
+    }
+
+    @Benchmark
+    public boolean renew() {
+        return food.renew(board, random);
+    }
+}
@@ -0,0 +1,62 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of choosing and submitting the sprites of a snake for one frame ({@link SnakeSkin#draw}),
+ * with a batch that only counts the sprites: the whole snake, or only the part on screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    int snakeLength; // Length of the snake
+
+    Snake snake;
+    SnakeSkin skin;
+    CountingBatch batch;
+
+    @Setup
+    public void setUp() {
+        int boardSize = 2 * (int) Math.sqrt(snakeLength) + 8; // Room for the zigzag
+        snake = new Snake(1, new Board(boardSize, boardSize), 0, 0, 1);
+        BenchmarkBoards.stretch(snake, snakeLength, 0, boardSize - 1);
+        skin = new SnakeSkin(1);
+        batch = new CountingBatch();
+    }
+
+    @Benchmark
+    public int draw() {
+        batch.sprites = 0;
+        skin.draw(batch, snake, 0.5f);
+        return batch.sprites;
+    }
+
+    /**
+     * Draw only the part of the snake in a window of 30x30 cells around the head (see {@link FollowCamera}).
+     */
+    @Benchmark
+    public int drawVisible() {
+        batch.sprites = 0;
+        int x = snake.getHeadX(), y = snake.getHeadY();
+        skin.draw(batch, snake, 0.5f, x - 15, y - 15, x + 14, y + 14);
+        return batch.sprites;
+    }
+}
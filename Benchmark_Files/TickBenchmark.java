@@ -0,0 +1,67 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one tick of a match ({@link GameState#step(int[])}) as the board and the snakes grow.
+ * Both snakes go around a square next to their starting position, so the match never ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"30", "300", "1000"})
+    int boardSize; // Columns and rows of the board
+
+    @Param({"16", "1024", "65536"})
+    int snakeLength; // Length of each snake
+
+    GameState state;
+    final int[] inputs = new int[2];
+    final Metrics metrics = new Metrics(false); // Disabled, as in a normal game
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = new GameState(boardSize, boardSize, 42);
+        while (state.getSnake(1).size < snakeLength) {
+            state.getSnake(1).grow();
+            state.getSnake(2).grow();
+        }
+    }
+
+    @Benchmark
+    public long step() {
+        inputs[0] = AllocationProbe.aroundStart(state, 0);
+        inputs[1] = AllocationProbe.aroundStart(state, 1);
+        state.step(inputs);
+        return state.getTick();
+    }
+
+    /**
+     * The same tick between the calls of a disabled {@link Metrics}, as in the game: it should cost the same as step().
+     */
+    @Benchmark
+    public long stepMeasured() {
+        metrics.startTick();
+        long tick = step();
+        metrics.endTick(tick);
+        return tick;
+    }
+}
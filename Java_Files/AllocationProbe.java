@@ -0,0 +1,214 @@
+package com.mygdx.game;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap memory allocated by the current thread and the number of native handles
+ * (e.g. textures) over a window of frames, to check that the game loop reaches a steady state
+ * without allocations.
+ *
+ * Each screen is measured separately: after a warm-up, any frame window that allocates or creates
+ * native handles is reported as a failure.
+ * {@link RenderProbe} runs the check on the frames of the game, without a window; running this class runs it
+ * on the simulation alone: it plays a match for some ticks and exits with status 1 if the steady state keeps allocating.
+ */
+public class AllocationProbe {
+
+    public final static int WARMUP_FRAMES = 240; // Frames ignored after the screen changes
+    public final static int WINDOW_FRAMES = 600; // Frames of each measurement
+    public final static int TICKS_PER_WINDOW = 10_000; // Ticks of each measurement of the simulation (see main)
+    public final static int WARMUP_WINDOWS = 5; // Windows of ticks run before measuring the simulation
+
+    // Thread bean of the HotSpot JVM, able to tell the bytes allocated by a thread
+    static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    final int warmupFrames; // Frames ignored after the screen changes
+    final int windowFrames; // Frames of each measurement
+
+    int screen = -1; // Screen being measured
+    int frames; // Frames since the screen changed
+    int windows; // Windows measured since the screen changed
+    long startBytes; // Bytes allocated by the thread when the window started
+    int startHandles; // Native handles when the window started
+
+    long lastBytes; // Bytes allocated in the last complete window
+    int lastHandles; // Native handles created in the last complete window
+    int failures; // Windows that allocated or created native handles
+
+    /**
+     * Constructor to initialize the probe.
+     *
+     * @param warmupFrames Frames ignored after the screen changes.
+     * @param windowFrames Frames of each measurement.
+     */
+    public AllocationProbe(int warmupFrames, int windowFrames) {
+        this.warmupFrames = warmupFrames;
+        this.windowFrames = windowFrames;
+    }
+
+    /**
+     * Create a probe if the check is enabled with -Dsnake.checkAllocations=true.
+     *
+     * @return The probe, or null if the check is disabled.
+     */
+    public static AllocationProbe fromSystemProperty() {
+        return Boolean.getBoolean("snake.checkAllocations") ? new AllocationProbe(WARMUP_FRAMES, WINDOW_FRAMES) : null;
+    }
+
+    /**
+     * @return Total bytes allocated by the current thread.
+     */
+    static long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Register the end of a frame.
+     *
+     * @param screen  Number of the screen shown in the frame.
+     * @param handles Number of native handles alive at the end of the frame.
+     * @return true if a window has just ended with allocations or new native handles.
+     */
+    public boolean frame(int screen, int handles) {
+        if (screen != this.screen) { // Restart the warm-up on another screen
+            this.screen = screen;
+            frames = 0;
+            windows = 0;
+        }
+        frames++;
+
+        if (frames == warmupFrames) {
+            startBytes = allocatedBytes();
+            startHandles = handles;
+        } else if (frames == warmupFrames + windowFrames) {
+            lastBytes = allocatedBytes() - startBytes;
+            lastHandles = handles - startHandles;
+            frames = warmupFrames; // The next window starts now
+            startBytes += lastBytes;
+            startHandles = handles;
+            windows++;
+
+            if (lastBytes > 0 || lastHandles > 0) {
+                failures++;
+                System.err.println("Screen " + screen + " allocated " + lastBytes + " bytes and "
+                        + lastHandles + " native handles in " + windowFrames + " frames");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getLastBytes() {
+        return lastBytes;
+    }
+
+    public int getWindows() {
+        return windows;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Input that keeps a snake going around a square, so that a match never ends.
+     *
+     * @param snake The snake.
+     * @param x0    Left column of the square.
+     * @param y0    Bottom row of the square.
+     * @param x1    Right column of the square.
+     * @param y1    Top row of the square.
+     * @return Mask of the key to be pressed.
+     */
+    static int aroundSquare(Snake snake, int x0, int y0, int x1, int y1) {
+        return aroundSquare(snake.getHeadX(), snake.getHeadY(), x0, y0, x1, y1);
+    }
+
+    /**
+     * Input that keeps a snake going around a square next to its starting position, so that the snakes of a match
+     * never meet (on a board with enough rows between the snakes).
+     *
+     * @param state The match.
+     * @param i     Index of the snake.
+     * @return Mask of the key to be pressed.
+     */
+    static int aroundStart(GameState state, int i) {
+        int x = state.startX(i), y = state.startY(i);
+        if (i % 2 == 0) { // Starts on the left side heading right
+            return aroundSquare(state.snakes[i], x, y, x + 4, y + 4);
+        }
+        return aroundSquare(state.snakes[i], x - 4, y - 4, x, y);
+    }
+
+    /**
+     * Input that keeps a head going around a square, when only its position is known (e.g. over the network).
+     * A head that left the square (its keys arrived late and it missed a corner) is steered back around it,
+     * without ever turning back on itself.
+     *
+     * @param x  Column of the head.
+     * @param y  Row of the head.
+     * @param x0 Left column of the square.
+     * @param y0 Bottom row of the square.
+     * @param x1 Right column of the square.
+     * @param y1 Top row of the square.
+     * @return Mask of the key to be pressed.
+     */
+    static int aroundSquare(int x, int y, int x0, int y0, int x1, int y1) {
+        if (y <= y0 && x < x1) return Snake.RIGHT;
+        if (x >= x1 && y < y1) return Snake.UP;
+        if (y >= y1 && x > x0) return Snake.LEFT;
+        return Snake.DOWN;
+    }
+
+    /**
+     * Step a match, with both snakes going around their squares.
+     * Kept apart from {@link #main} so the JIT compiles it as a whole method, and not the loop of main on the fly.
+     *
+     * @param state  The match.
+     * @param inputs Keys of the players, reused.
+     * @param ticks  Number of ticks.
+     */
+    static void play(GameState state, int[] inputs, int ticks) {
+        for (int tick = 0; tick < ticks && !state.isOver(); tick++) {
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = aroundStart(state, i);
+            }
+            state.step(inputs);
+        }
+    }
+
+    /**
+     * Headless check of the simulation: steps a match for some windows of ticks, after WARMUP_WINDOWS windows
+     * for the JIT, and fails if more than half of the windows allocated memory. An allocation of the simulation
+     * shows up in every window, while the JIT may allocate in a few (e.g. objects it had removed, rebuilt when
+     * compiled code is thrown away).
+     *
+     * @param args Optional number of windows to measure (default 10).
+     */
+    public static void main(String[] args) {
+        int windows = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        GameState state = new GameState(42);
+        int[] inputs = new int[state.getPlayers()];
+        for (int i = 0; i < WARMUP_WINDOWS; i++) {
+            play(state, inputs, TICKS_PER_WINDOW);
+        }
+        int allocating = 0; // Windows that allocated
+        for (int i = 0; i < windows && !state.isOver(); i++) {
+            long start = allocatedBytes();
+            play(state, inputs, TICKS_PER_WINDOW);
+            long bytes = allocatedBytes() - start;
+            if (bytes > 0) {
+                allocating++;
+                System.err.println("Window " + i + " allocated " + bytes + " bytes in " + TICKS_PER_WINDOW + " ticks");
+            }
+        }
+
+        if (state.isOver()) {
+            System.err.println("The match ended after " + state.getTick() + " ticks");
+            System.exit(1);
+        }
+        System.out.println(allocating + " of " + windows + " windows allocated memory");
+        System.exit(allocating * 2 > windows ? 1 : 0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.mygdx.game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes values of any number of bits in a ByteBuffer, least significant bits first.
+ * One object is reused for every message, so packing does not allocate.
+ */
+class BitPacker {
+
+    ByteBuffer buffer; // Buffer being written or read
+    long bits; // Bits not yet written to / already read from the buffer
+    int count; // Number of bits in the bits field
+
+    /**
+     * Start writing at the position of a buffer.
+     *
+     * @param out The buffer.
+     */
+    void startWrite(ByteBuffer out) {
+        buffer = out;
+        bits = 0;
+        count = 0;
+    }
+
+    /**
+     * Write the low bits of a value.
+     *
+     * @param value The value.
+     * @param n     Number of bits to write (at most 32).
+     */
+    void write(long value, int n) {
+        bits |= (value & ((1L << n) - 1)) << count;
+        count += n;
+        while (count >= 8) {
+            buffer.put((byte) bits);
+            bits >>>= 8;
+            count -= 8;
+        }
+    }
+
+    /**
+     * Write a non-negative value in groups of 3 bits, each followed by a bit telling if another group follows.
+     * Small values (as the length of a run) take 4 bits.
+     *
+     * @param value The value.
+     */
+    void writeVar(long value) {
+        while ((value & ~7L) != 0) {
+            write((value & 7) | 8, 4);
+            value >>>= 3;
+        }
+        write(value, 4);
+    }
+
+    /**
+     * Write a float, in a few bits if it holds a small whole number.
+     *
+     * @param value The value.
+     */
+    void writeFloat(float value) {
+        if (value >= 0 && value < 65536 && value == (int) value) {
+            write(1, 1);
+            writeVar((int) value);
+        } else {
+            write(0, 1);
+            write(Float.floatToRawIntBits(value), 32);
+        }
+    }
+
+    /**
+     * Write the last bits, padding the last byte with zeros.
+     */
+    void finishWrite() {
+        if (count > 0) {
+            buffer.put((byte) bits);
+        }
+        bits = 0;
+        count = 0;
+        buffer = null;
+    }
+
+    /**
+     * Start reading at the position of a buffer.
+     *
+     * @param in The buffer.
+     */
+    void startRead(ByteBuffer in) {
+        buffer = in;
+        bits = 0;
+        count = 0;
+    }
+
+    /**
+     * Read an unsigned value.
+     *
+     * @param n Number of bits to read (at most 32).
+     * @return The value.
+     */
+    long read(int n) {
+        while (count < n) {
+            bits |= (buffer.get() & 0xFFL) << count;
+            count += 8;
+        }
+        long value = bits & ((1L << n) - 1);
+        bits >>>= n;
+        count -= n;
+        return value;
+    }
+
+    /**
+     * @return A value written by {@link #writeVar(long)}.
+     */
+    long readVar() {
+        long value = 0;
+        for (int shift = 0; ; shift += 3) {
+            long group = read(4);
+            value |= (group & 7) << shift;
+            if ((group & 8) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * @return A value written by {@link #writeFloat(float)}.
+     */
+    float readFloat() {
+        if (read(1) == 1) {
+            return readVar();
+        }
+        return Float.intBitsToFloat((int) read(32));
+    }
+
+    /**
+     * Stop reading, skipping the padding of the last byte.
+     */
+    void finishRead() {
+        bits = 0;
+        count = 0;
+        buffer = null;
+    }
+}
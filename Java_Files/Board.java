@@ -0,0 +1,288 @@
+package com.mygdx.game;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Occupancy index of the board: which snakes have segments on each grid cell.
+ *
+ * The snakes update it as their heads enter and their tails leave a cell, so checking
+ * a cell costs O(1) whatever the length of the snakes is.
+ * A snake may occupy the same cell more than once (it grows from its tail and can cross itself),
+ * so every cell keeps the number of segments on it and the sum (and sum of squares) of the
+ * numbers of their snakes: the cell belongs to a single snake exactly when all those numbers are equal.
+ * It also keeps the piece of food on each cell, so a head finds the food under it in O(1) whatever the
+ * number of pieces of food is.
+ *
+ * The board also counts the free cells (no snake and no food) in a Fenwick tree to pick a random one; the pick
+ * depends only on which cells are free, so a board restored from a snapshot spawns the same food.
+ */
+public class Board {
+
+    public static final int EMPTY = 0; // No segment on the cell
+    public static final int MIXED = -1; // Segments of more than one snake on the cell
+
+    final int columns; // Number of columns of the board
+    final int rows; // Number of rows of the board
+
+    final short[] count; // Number of segments on each cell
+    final int[] idSum; // Sum of the snake numbers of the segments on each cell
+    final int[] idSquareSum; // Sum of the squares of the snake numbers of the segments on each cell
+    final int[] food; // Index + 1 of the piece of food on each cell (0 = no food)
+
+    final int[] freeTree; // Fenwick tree of the free cells (1-based: freeTree[i] counts the cells (i - lowbit(i), i])
+    final int topBit; // Highest power of two not above the number of cells
+    int freeCount; // Number of free cells
+
+    /**
+     * Constructor to create an empty board.
+     *
+     * @param columns Number of columns of the board.
+     * @param rows    Number of rows of the board.
+     */
+    public Board(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        count = new short[columns * rows];
+        idSum = new int[columns * rows];
+        idSquareSum = new int[columns * rows];
+        food = new int[columns * rows];
+        freeTree = new int[columns * rows + 1];
+        topBit = Integer.highestOneBit(columns * rows);
+        buildFreeTree();
+    }
+
+    /**
+     * Remove every snake and every food from the board.
+     */
+    void clear() {
+        Arrays.fill(count, (short) 0);
+        Arrays.fill(idSum, 0);
+        Arrays.fill(idSquareSum, 0);
+        Arrays.fill(food, 0);
+        buildFreeTree();
+    }
+
+    /**
+     * Build the Fenwick tree of the free cells in O(n).
+     */
+    private void buildFreeTree() {
+        int n = count.length;
+        Arrays.fill(freeTree, 0);
+        freeCount = 0;
+        for (int i = 1; i <= n; i++) {
+            if (count[i - 1] == 0 && food[i - 1] == 0) {
+                freeTree[i]++;
+                freeCount++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                freeTree[parent] += freeTree[i];
+            }
+        }
+    }
+
+    /**
+     * Checks if a cell is inside the board.
+     *
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     * @return true if the cell is inside the board.
+     */
+    public boolean inside(int x, int y) {
+        return x >= 0 && x < columns && y >= 0 && y < rows;
+    }
+
+    /**
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     * @return Number of snake segments on the cell.
+     */
+    public int count(int x, int y) {
+        return count[y * columns + x];
+    }
+
+    /**
+     * Tells who owns a cell.
+     *
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     * @return EMPTY, the number of the only snake on the cell, or MIXED.
+     */
+    public int owner(int x, int y) {
+        int i = y * columns + x;
+        int n = count[i];
+        if (n == 0) {
+            return EMPTY;
+        }
+        long sum = idSum[i];
+        if ((long) idSquareSum[i] * n != sum * sum) {
+            return MIXED;
+        }
+        return (int) (sum / n);
+    }
+
+    /**
+     * Register a segment of a snake entering a cell (cells outside the board are ignored).
+     *
+     * @param x  Column of the cell.
+     * @param y  Row of the cell.
+     * @param id Number of the snake.
+     */
+    void add(int x, int y, int id) {
+        if (!inside(x, y)) {
+            return;
+        }
+        int i = y * columns + x;
+        if (count[i] == 0 && food[i] == 0) {
+            removeFree(i);
+        }
+        count[i]++;
+        idSum[i] += id;
+        idSquareSum[i] += id * id;
+    }
+
+    /**
+     * Register a segment of a snake leaving a cell (cells outside the board are ignored).
+     *
+     * @param x  Column of the cell.
+     * @param y  Row of the cell.
+     * @param id Number of the snake.
+     */
+    void remove(int x, int y, int id) {
+        if (!inside(x, y)) {
+            return;
+        }
+        int i = y * columns + x;
+        count[i]--;
+        idSum[i] -= id;
+        idSquareSum[i] -= id * id;
+        if (count[i] == 0 && food[i] == 0) {
+            addFree(i);
+        }
+    }
+
+    /**
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     * @return true if there is a piece of food on the cell.
+     */
+    public boolean hasFood(int x, int y) {
+        return food[y * columns + x] != 0;
+    }
+
+    /**
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     * @return The index of the piece of food on the cell, or -1 if there is none.
+     */
+    public int foodAt(int x, int y) {
+        return food[y * columns + x] - 1;
+    }
+
+    /**
+     * Register a piece of food placed on a cell.
+     *
+     * @param x     Column of the cell.
+     * @param y     Row of the cell.
+     * @param index Index of the food in its match.
+     */
+    void addFood(int x, int y, int index) {
+        int i = y * columns + x;
+        if (count[i] == 0) {
+            removeFree(i);
+        }
+        food[i] = index + 1;
+    }
+
+    /**
+     * Register a piece of food taken off a cell.
+     *
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     */
+    void removeFood(int x, int y) {
+        int i = y * columns + x;
+        food[i] = 0;
+        if (count[i] == 0) {
+            addFree(i);
+        }
+    }
+
+    /**
+     * Pick a free cell uniformly at random.
+     *
+     * @param random The random generator of the match.
+     * @return The index of the cell (y * columns + x), or -1 if the board is full.
+     */
+    public int randomFreeCell(Random random) {
+        if (freeCount == 0) {
+            return -1;
+        }
+        return freeCell(random.nextInt(freeCount));
+    }
+
+    /**
+     * Find the k-th free cell, in the order of the cell indexes.
+     *
+     * @param k Rank of the free cell (0 = first free cell).
+     * @return The index of the cell.
+     */
+    int freeCell(int k) {
+        int position = 0; // Cells before position hold at most k free cells
+        for (int bit = topBit; bit > 0; bit >>= 1) {
+            int next = position + bit;
+            if (next < freeTree.length && freeTree[next] <= k) {
+                position = next;
+                k -= freeTree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @return Number of free cells (no snake and no food).
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Add a cell to the free set.
+     *
+     * @param i Index of the cell.
+     */
+    private void addFree(int i) {
+        updateFree(i, 1);
+    }
+
+    /**
+     * Remove a cell from the free set.
+     *
+     * @param i Index of the cell.
+     */
+    private void removeFree(int i) {
+        updateFree(i, -1);
+    }
+
+    /**
+     * Change the number of free cells counted for a cell in the Fenwick tree.
+     *
+     * @param i     Index of the cell.
+     * @param delta 1 if the cell became free, -1 if it was taken.
+     */
+    private void updateFree(int i, int delta) {
+        freeCount += delta;
+        for (int j = i + 1; j < freeTree.length; j += j & -j) {
+            freeTree[j] += delta;
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
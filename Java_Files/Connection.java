@@ -0,0 +1,273 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One non-blocking TCP connection of a networked match, used by both {@link MatchServer} and {@link MatchClient}.
+ *
+ * Messages are framed as [int body length][byte type][body]. Incoming bytes are kept in a buffer until
+ * a whole message has arrived; outgoing messages are written into a buffer that is flushed when the
+ * channel is writable, so a slow peer never blocks the selector loop.
+ *
+ * The peer is not trusted: a message longer than MAX_FRAME, or whose body does not have the size of its type,
+ * is a protocol error, and a peer that lets more than MAX_QUEUED bytes wait in the outgoing buffer is behind
+ * (see {@link #isBehind()}). In both cases the connection is to be closed, so neither buffer grows without limit.
+ */
+class Connection {
+
+    public final static int HEADER_SIZE = 5; // Length and type of a message
+    public final static int MAX_FRAME = 1 << 20; // Longest body accepted (a full snapshot of a board far bigger than the default one)
+    public final static int MAX_QUEUED = 1 << 20; // Bytes waiting to be sent before the peer is considered behind
+
+    // Types of message
+    public final static byte WELCOME = 1; // Server -> client: number of the player (byte), columns and rows (shorts)
+    public final static byte INPUT = 2; // Client -> server: tick the keys are for (long) and mask of the keys pressed (byte)
+    public final static byte STATE = 3; // Server -> client: snapshot of the match (see SnapshotCodec)
+    public final static byte PING = 4; // Either side: time it was sent (long)
+    public final static byte PONG = 5; // Answer to a ping: the same time (long)
+    public final static byte INPUTS = 6; // Server -> client: tick (long) and keys of each player used by it (2 bytes)
+
+    final SocketChannel channel;
+    SelectionKey key; // Key of the channel in the selector
+
+    ByteBuffer in = ByteBuffer.allocate(1 << 16); // Bytes received and not yet handled (write mode)
+    ByteBuffer out = ByteBuffer.allocate(1 << 16); // Bytes waiting to be sent (write mode)
+    int messageStart = -1; // Position of the message being written in out (-1 = none)
+    int bodyEnd = -1; // End of the message being read in in (-1 = in is receiving bytes)
+
+    int player; // Number of the player of the connection (0 = spectator / not assigned)
+    SpectatorFeed.Cursor cursor; // Position of a spectator in the messages of the server (null = not a spectator)
+
+    long bytesSent; // Total bytes written to the channel
+    long bytesReceived; // Total bytes read from the channel
+    long rttNanos = -1; // Last round-trip time measured (-1 = not measured yet)
+    long rttTotalNanos; // Sum of all the round-trip times measured
+    int rttSamples; // Number of round-trip times measured
+
+    /**
+     * Constructor of a connection over an already connected channel.
+     *
+     * @param channel The channel, which is switched to non-blocking mode.
+     * @throws IOException If the channel cannot be configured.
+     */
+    Connection(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Start writing a message in the outgoing buffer.
+     *
+     * @param type     Type of the message.
+     * @param maxBytes Maximum size of the body of the message.
+     * @return The outgoing buffer, where the body must be written before calling {@link #endMessage()}.
+     */
+    ByteBuffer beginMessage(byte type, int maxBytes) {
+        ensureOut(HEADER_SIZE + maxBytes);
+        messageStart = out.position();
+        out.putInt(0); // Length, known at the end
+        out.put(type);
+        return out;
+    }
+
+    /**
+     * Finish the message started by {@link #beginMessage(byte, int)}, filling in its length.
+     */
+    void endMessage() {
+        out.putInt(messageStart, out.position() - messageStart - HEADER_SIZE);
+        messageStart = -1;
+        wantWrite();
+    }
+
+    /**
+     * Queue a message that was already encoded elsewhere (e.g. a state shared by all connections).
+     *
+     * @param message The whole message (header and body), between its position and its limit.
+     */
+    void enqueue(ByteBuffer message) {
+        ensureOut(message.remaining());
+        out.put(message.duplicate());
+        wantWrite();
+    }
+
+    /**
+     * Queue a ping with the current time.
+     */
+    void ping() {
+        beginMessage(PING, 8).putLong(System.nanoTime());
+        endMessage();
+    }
+
+    /**
+     * Make room in the outgoing buffer, doubling it if needed.
+     *
+     * @param bytes Bytes that will be written.
+     */
+    private void ensureOut(int bytes) {
+        if (out.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        out.flip();
+        bigger.put(out);
+        out = bigger;
+    }
+
+    /**
+     * Ask the selector to tell when the channel can be written.
+     */
+    private void wantWrite() {
+        if (key != null && key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Write as much of the outgoing buffer as the channel accepts.
+     *
+     * @throws IOException If the connection is broken.
+     */
+    void flush() throws IOException {
+        out.flip();
+        bytesSent += channel.write(out);
+        out.compact();
+        if (out.position() == 0 && key != null && key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * @return Bytes waiting to be sent.
+     */
+    int pendingBytes() {
+        return out.position();
+    }
+
+    /**
+     * @return true if the peer does not read its messages fast enough: more than MAX_QUEUED bytes wait to be sent.
+     */
+    boolean isBehind() {
+        return out.position() > MAX_QUEUED;
+    }
+
+    /**
+     * @param type Type of a message.
+     * @return Size of the body of the messages of this type, -1 if it varies (STATE), or -2 if the type is unknown.
+     */
+    static int bodySize(int type) {
+        switch (type) {
+            case WELCOME:
+                return 5;
+            case INPUT:
+                return 9;
+            case STATE:
+                return -1;
+            case PING:
+            case PONG:
+                return 8;
+            case INPUTS:
+                return 10;
+            default:
+                return -2;
+        }
+    }
+
+    /**
+     * Read the bytes available on the channel.
+     *
+     * @return false if the peer closed the connection.
+     * @throws IOException If the connection is broken.
+     */
+    boolean read() throws IOException {
+        if (!in.hasRemaining()) { // A message bigger than the buffer: grow it (up to MAX_FRAME, see nextMessage())
+            ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+        int count = channel.read(in);
+        if (count < 0) {
+            return false;
+        }
+        bytesReceived += count;
+        return true;
+    }
+
+    /**
+     * Get the next complete message received, if any.
+     * When a type is returned, the incoming buffer is positioned on the body of the message;
+     * the body does not need to be read entirely. {@link #endRead()} must be called once no more
+     * messages are wanted.
+     *
+     * @return The type of the message, or -1 if no complete message arrived.
+     * @throws ProtocolException If the next message is too long, has an unknown type or a body of the wrong size.
+     */
+    int nextMessage() throws ProtocolException {
+        if (bodyEnd < 0) { // Switch the buffer to read mode
+            in.flip();
+        } else { // Skip what was left of the last message
+            in.position(bodyEnd);
+        }
+        bodyEnd = in.position();
+        if (in.remaining() < HEADER_SIZE) {
+            return -1;
+        }
+        int length = in.getInt(in.position());
+        int type = in.get(in.position() + 4);
+        int size = bodySize(type);
+        if (length < 0 || length > MAX_FRAME || size == -2 || (size >= 0 && length != size)) {
+            throw new ProtocolException("Bad message: type " + type + ", " + length + " bytes");
+        }
+        if (in.remaining() < HEADER_SIZE + length) {
+            return -1;
+        }
+        bodyEnd = in.position() + HEADER_SIZE + length;
+        in.getInt();
+        return in.get();
+    }
+
+    /**
+     * Go back to receiving bytes, keeping the incomplete message (if any) for later.
+     */
+    void endRead() {
+        if (bodyEnd >= 0) {
+            in.position(bodyEnd);
+            in.compact();
+            bodyEnd = -1;
+        }
+    }
+
+    /**
+     * Register a round-trip time measured with a ping.
+     *
+     * @param sentAt Time the ping was sent.
+     */
+    void pong(long sentAt) {
+        rttNanos = System.nanoTime() - sentAt;
+        rttTotalNanos += rttNanos;
+        rttSamples++;
+    }
+
+    /**
+     * @return The average round-trip time, or -1 if never measured.
+     */
+    long averageRttNanos() {
+        return rttSamples == 0 ? -1 : rttTotalNanos / rttSamples;
+    }
+
+    /**
+     * Close the channel, ignoring errors.
+     */
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
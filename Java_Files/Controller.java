@@ -0,0 +1,62 @@
+package com.mygdx.game;
+
+/**
+ * Decides the movement keys of a snake at each tick, in place of a player on the keyboard.
+ *
+ * A controller plays a single snake in a single match: it may keep state between the ticks of its match,
+ * but must not share mutable state with other matches, which are played on other threads
+ * (see {@link Tournament}).
+ */
+public interface Controller {
+
+    /**
+     * Choose the keys pressed by the player for the next tick.
+     *
+     * @param state  The match, before the tick.
+     * @param player Number of the player controlled (1 for the first snake).
+     * @return Mask of the movement keys pressed (see {@link Snake#UP}).
+     */
+    int input(GameState state, int player);
+
+    /**
+     * The keys only matter when the snake moves (the last direction chosen before the move is taken), so
+     * a controller can skip the other ticks by returning 0.
+     *
+     * @param snake A snake of a match, before the tick.
+     * @return true if the snake moves in the next tick.
+     */
+    static boolean movesNextTick(Snake snake) {
+        return snake.movesNextTick();
+    }
+
+    /**
+     * @param dx Horizontal direction (-1, 0 or 1).
+     * @param dy Vertical direction (-1, 0 or 1, 1 = up).
+     * @return Mask of the key that turns a snake towards the direction.
+     */
+    static int toward(int dx, int dy) {
+        if (dx < 0) return Snake.LEFT;
+        if (dx > 0) return Snake.RIGHT;
+        if (dy > 0) return Snake.UP;
+        if (dy < 0) return Snake.DOWN;
+        return 0;
+    }
+
+    /**
+     * Check if the head of a snake can move to a cell without crashing in this tick: the cell is on the board
+     * and holds no segment of another snake (the snake never crashes on its own body).
+     *
+     * @param board The board of the match.
+     * @param snake The snake.
+     * @param x     Column of the cell.
+     * @param y     Row of the cell.
+     * @return true if the cell is safe.
+     */
+    static boolean isSafe(Board board, Snake snake, int x, int y) {
+        if (!board.inside(x, y)) {
+            return false;
+        }
+        int owner = board.owner(x, y);
+        return owner == Board.EMPTY || owner == snake.id;
+    }
+}
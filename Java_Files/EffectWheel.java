@@ -0,0 +1,162 @@
+package com.mygdx.game;
+
+import java.util.Arrays;
+
+/**
+ * Expiry times of the effects on the snakes of a match (see {@link Snake#EFFECT_SLOW}), in a hierarchical timer wheel.
+ *
+ * The wheel has LEVELS levels of SLOTS slots. An effect that expires in less than SLOTS ticks is put in the slot
+ * of its tick in the first level; one that expires later is put in a slot of a higher level, which covers SLOTS
+ * times more ticks per slot. Every SLOTS ticks, the next slot of the level above is emptied into the level below.
+ * Adding an effect and expiring it are done in constant time, whatever the number of effects, and a tick only
+ * looks at one slot (plus, every SLOTS ticks, the effects moved down a level).
+ *
+ * The entries are kept in arrays, linked by index, and reused once expired: the wheel does not allocate after
+ * its arrays have grown to the number of effects alive at the same time.
+ */
+public class EffectWheel {
+
+    public final static int SLOT_BITS = 6;
+    public final static int SLOTS = 1 << SLOT_BITS; // Slots of each level
+    public final static int LEVELS = 4;
+    public final static long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1; // Longer effects expire after MAX_DELAY ticks
+
+    final int[] heads = new int[LEVELS * SLOTS]; // First entry of each slot (-1 = empty)
+
+    // Entries (an entry is an index in these arrays)
+    int[] next = new int[16]; // Next entry of the same slot, or of the free entries
+    int[] snakes = new int[16]; // Index of the snake under the effect
+    byte[] effects = new byte[16]; // Kind of the effect
+    long[] expiries = new long[16]; // Tick from which the effect no longer applies
+    int used; // Entries taken from the arrays
+    int free = -1; // First free entry (-1 = none)
+
+    int size; // Effects in the wheel
+    long now; // Next tick whose expiries are processed
+    long changes; // Number of effects added or expired since the wheel was created
+
+    /**
+     * Constructor of an empty wheel.
+     *
+     * @param now First tick whose expiries will be processed.
+     */
+    public EffectWheel(long now) {
+        clear(now);
+    }
+
+    /**
+     * Remove all the effects.
+     *
+     * @param now Next tick whose expiries will be processed.
+     */
+    public void clear(long now) {
+        Arrays.fill(heads, -1);
+        used = 0;
+        free = -1;
+        size = 0;
+        this.now = now;
+        changes++;
+    }
+
+    /**
+     * Add an effect.
+     *
+     * @param snake  Index of the snake under the effect.
+     * @param effect Kind of the effect.
+     * @param expiry Tick at which the effect expires (at least the next tick processed, at most MAX_DELAY ticks after it).
+     */
+    public void add(int snake, int effect, long expiry) {
+        int entry = free;
+        if (entry >= 0) {
+            free = next[entry];
+        } else {
+            if (used == next.length) {
+                grow();
+            }
+            entry = used++;
+        }
+        snakes[entry] = snake;
+        effects[entry] = (byte) effect;
+        expiries[entry] = Math.max(now, Math.min(expiry, now + MAX_DELAY));
+        place(entry);
+        size++;
+        changes++;
+    }
+
+    /**
+     * Double the capacity of the entries.
+     */
+    private void grow() {
+        int capacity = next.length * 2;
+        next = Arrays.copyOf(next, capacity);
+        snakes = Arrays.copyOf(snakes, capacity);
+        effects = Arrays.copyOf(effects, capacity);
+        expiries = Arrays.copyOf(expiries, capacity);
+    }
+
+    /**
+     * Put an entry in the slot of its expiry: the first level if it expires in less than SLOTS ticks,
+     * otherwise the level whose slots cover its delay.
+     *
+     * @param entry The entry.
+     */
+    private void place(int entry) {
+        long expiry = expiries[entry];
+        long delay = expiry - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = level * SLOTS + (int) (expiry >>> (SLOT_BITS * level)) % SLOTS;
+        next[entry] = heads[slot];
+        heads[slot] = entry;
+    }
+
+    /**
+     * Process the expiries of the next tick: the effects that expire are removed from their snakes.
+     *
+     * @param snakes The snakes of the match.
+     */
+    public void expire(Snake[] snakes) {
+        int first = (int) (now % SLOTS); // Slot of the tick in the first level
+        int index = first;
+        // At the start of a turn of a level, move the next slot of the level above down
+        for (int level = 1; index == 0 && level < LEVELS; level++) {
+            int slot = (int) (now >>> (SLOT_BITS * level)) % SLOTS;
+            cascade(level * SLOTS + slot);
+            index = slot;
+        }
+
+        int entry = heads[first];
+        heads[first] = -1;
+        while (entry >= 0) {
+            int following = next[entry];
+            snakes[this.snakes[entry]].removeEffect(effects[entry]);
+            next[entry] = free;
+            free = entry;
+            size--;
+            changes++;
+            entry = following;
+        }
+        now++;
+    }
+
+    /**
+     * Put the entries of a slot of a higher level back in the wheel, in the slots of the level below.
+     *
+     * @param slot The slot.
+     */
+    private void cascade(int slot) {
+        int entry = heads[slot];
+        heads[slot] = -1;
+        while (entry >= 0) {
+            int following = next[entry];
+            place(entry);
+            entry = following;
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
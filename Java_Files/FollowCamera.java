@@ -0,0 +1,80 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+
+/**
+ * Camera of a player on a board bigger than the window: it follows the head of the snake of the player
+ * and draws in its own part of the window (split screen when there are two players).
+ *
+ * It also gives the rectangle of cells on screen, so only what is inside of it is drawn.
+ */
+public class FollowCamera {
+
+    final OrthographicCamera camera = new OrthographicCamera();
+    final int screenX, screenY, width, height; // Part of the window used by the camera, in pixels
+
+    // Cells on screen (a rectangle of the board)
+    int minX, minY, maxX, maxY;
+
+    /**
+     * Constructor of a camera drawing in a part of the window.
+     *
+     * @param screenX Left of the part of the window, in pixels.
+     * @param screenY Bottom of the part of the window, in pixels.
+     * @param width   Width of the part of the window, in pixels.
+     * @param height  Height of the part of the window, in pixels.
+     */
+    public FollowCamera(int screenX, int screenY, int width, int height) {
+        this.screenX = screenX;
+        this.screenY = screenY;
+        this.width = width;
+        this.height = height;
+        camera.setToOrtho(false, width, height);
+    }
+
+    /**
+     * Center the camera on the head of a snake (where it is drawn, between two ticks), without showing
+     * anything beyond the edges of the board.
+     *
+     * @param snake   The snake followed.
+     * @param alpha   Fraction of the next tick already elapsed, used to interpolate the head.
+     * @param columns Number of columns of the board.
+     * @param rows    Number of rows of the board.
+     */
+    public void follow(Snake snake, float alpha, int columns, int rows) {
+        int size = SnakeGame.SQUARE_SIZE;
+        float x = (snake.lastX + (snake.headX - snake.lastX) * alpha + 0.5f) * size;
+        float y = (snake.lastY + (snake.headY - snake.lastY) * alpha + 0.5f) * size;
+        x = clamp(x, width / 2f, columns * size - width / 2f);
+        y = clamp(y, height / 2f, rows * size - height / 2f);
+        camera.position.set(x, y, 0);
+        camera.update();
+
+        minX = Math.max(0, (int) Math.floor((x - width / 2f) / size));
+        minY = Math.max(0, (int) Math.floor((y - height / 2f) / size));
+        maxX = Math.min(columns - 1, (int) Math.floor((x + width / 2f) / size));
+        maxY = Math.min(rows - 1, (int) Math.floor((y + height / 2f) / size));
+    }
+
+    /**
+     * @return The value, or the middle of the range if the range is empty (the board is smaller than the view).
+     */
+    private static float clamp(float value, float min, float max) {
+        if (min > max) {
+            return (min + max) / 2;
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Draw the next sprites of the batch in the part of the window of the camera.
+     *
+     * @param batch The batch (not drawing yet).
+     */
+    public void apply(Batch batch) {
+        Gdx.gl.glViewport(screenX, screenY, width, height);
+        batch.setProjectionMatrix(camera.combined);
+    }
+}
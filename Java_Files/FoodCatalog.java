@@ -0,0 +1,282 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The kinds of food of a match, read from a configuration: how often each kind appears, how much it makes
+ * the snake grow, its effect on the nearest opponent and its image.
+ *
+ * The configuration has one kind per line (the first line is type 1, the next one type 2, ...):
+ * <pre>
+ * # name      weight growth effect sprite
+ * apple         71     1    none   apple
+ * snowflake     10     1    slow   snowflake
+ * </pre>
+ * The weight of a kind is its share of the pieces of food spawned; the effect is none, slow or haste
+ * (see {@link Snake#EFFECT_SLOW}); the sprite is the name of its image, without the extension.
+ *
+ * The type of a new piece of food is drawn from an alias table: whatever the number of kinds,
+ * a draw is one random number and one comparison.
+ */
+public class FoodCatalog {
+
+    public final static int NO_EFFECT = -1;
+    public final static int MAX_KINDS = 255;
+
+    // Kinds of food of the original game (the shares of the old hard-coded chances)
+    public final static String DEFAULT_CONFIG = ""
+            + "# name      weight growth effect sprite\n"
+            + "apple         71     1    none   apple\n"
+            + "snowflake     10     1    slow   snowflake\n"
+            + "lightning     10     1    haste  lightning\n"
+            + "silverapple    7     3    none   silverapple\n"
+            + "goldenapple    2     5    none   goldenapple\n";
+
+    public final static FoodCatalog DEFAULT = parse(DEFAULT_CONFIG);
+
+    // Properties of each kind, indexed by its type (type 0 = no food)
+    final String[] names;
+    final int[] weights;
+    final int[] growths;
+    final int[] effects; // Kind of the effect on the nearest opponent (NO_EFFECT = none)
+    final String[] sprites;
+
+    final int kinds; // Number of kinds (types 1 to kinds)
+    final int typeBits; // Bits of a type in a snapshot
+    final int maxGrowth; // Growth of the kind that grows the most
+    final int totalWeight;
+
+    // Alias table: column i is type i + 1, which is drawn if the random number falls under its threshold,
+    // otherwise its alias is drawn
+    final int[] thresholds;
+    final int[] aliases;
+
+    /**
+     * Constructor of a catalog.
+     *
+     * @param names   Name of each kind (index 0 = type 1).
+     * @param weights Share of the food spawned of each kind.
+     * @param growths Segments added to the snake that eats each kind.
+     * @param effects Effect of each kind on the nearest opponent (NO_EFFECT = none).
+     * @param sprites Image of each kind.
+     * @throws IllegalArgumentException If there are no kinds, too many kinds or weights that do not add up.
+     */
+    public FoodCatalog(String[] names, int[] weights, int[] growths, int[] effects, String[] sprites) {
+        kinds = names.length;
+        if (kinds == 0 || kinds > MAX_KINDS) {
+            throw new IllegalArgumentException("A food catalog has 1 to " + MAX_KINDS + " kinds, not " + kinds);
+        }
+        this.names = new String[kinds + 1];
+        this.weights = new int[kinds + 1];
+        this.growths = new int[kinds + 1];
+        this.effects = new int[kinds + 1];
+        this.sprites = new String[kinds + 1];
+        long total = 0;
+        int max = 0;
+        for (int i = 0; i < kinds; i++) {
+            if (weights[i] < 0 || growths[i] < 0 || effects[i] < NO_EFFECT || effects[i] >= Snake.EFFECT_KINDS) {
+                throw new IllegalArgumentException("Food " + names[i] + " has a negative weight or growth, or an unknown effect");
+            }
+            this.names[i + 1] = names[i];
+            this.weights[i + 1] = weights[i];
+            this.growths[i + 1] = growths[i];
+            this.effects[i + 1] = effects[i];
+            this.sprites[i + 1] = sprites[i];
+            total += weights[i];
+            max = Math.max(max, growths[i]);
+        }
+        if (total == 0 || total * kinds > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The weights of the food catalog add up to " + total);
+        }
+        totalWeight = (int) total;
+        maxGrowth = max;
+        typeBits = 32 - Integer.numberOfLeadingZeros(kinds);
+
+        thresholds = new int[kinds];
+        aliases = new int[kinds];
+        buildAliases();
+    }
+
+    /**
+     * Build the alias table (Vose's method, in integers so the draws are exact): every column holds totalWeight
+     * units, filled first by the units of its own type and then by units of a type with more than a column.
+     */
+    private void buildAliases() {
+        long[] units = new long[kinds]; // Units of each type not yet put in a column
+        int[] small = new int[kinds], large = new int[kinds];
+        int smallCount = 0, largeCount = 0;
+        for (int i = 0; i < kinds; i++) {
+            units[i] = (long) weights[i + 1] * kinds;
+            if (units[i] < totalWeight) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int column = small[--smallCount], alias = large[--largeCount];
+            thresholds[column] = (int) units[column];
+            aliases[column] = alias;
+            units[alias] -= totalWeight - units[column];
+            if (units[alias] < totalWeight) {
+                small[smallCount++] = alias;
+            } else {
+                large[largeCount++] = alias;
+            }
+        }
+        while (largeCount > 0) {
+            int column = large[--largeCount];
+            thresholds[column] = totalWeight;
+            aliases[column] = column;
+        }
+        while (smallCount > 0) { // Only left by rounding, which integers do not have
+            int column = small[--smallCount];
+            thresholds[column] = totalWeight;
+            aliases[column] = column;
+        }
+    }
+
+    /**
+     * Read a catalog from its configuration.
+     *
+     * @param config The configuration (see the description of the class).
+     * @return The catalog.
+     * @throws IllegalArgumentException If a line cannot be read.
+     */
+    public static FoodCatalog parse(String config) {
+        List<String[]> lines = new ArrayList<>();
+        String[] rows = config.split("\r?\n");
+        for (int i = 0; i < rows.length; i++) {
+            String row = rows[i].trim();
+            int comment = row.indexOf('#');
+            if (comment >= 0) {
+                row = row.substring(0, comment).trim();
+            }
+            if (row.isEmpty()) {
+                continue;
+            }
+            String[] fields = row.split("\\s+");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " of the food catalog does not have 5 fields: " + row);
+            }
+            lines.add(fields);
+        }
+
+        int count = lines.size();
+        String[] names = new String[count], sprites = new String[count];
+        int[] weights = new int[count], growths = new int[count], effects = new int[count];
+        for (int i = 0; i < count; i++) {
+            String[] fields = lines.get(i);
+            names[i] = fields[0];
+            try {
+                weights[i] = Integer.parseInt(fields[1]);
+                growths[i] = Integer.parseInt(fields[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Food " + fields[0] + " has a weight or growth that is not a number");
+            }
+            effects[i] = parseEffect(fields[3]);
+            sprites[i] = fields[4];
+        }
+        return new FoodCatalog(names, weights, growths, effects, sprites);
+    }
+
+    /**
+     * @param name Name of an effect in the configuration.
+     * @return The kind of the effect.
+     */
+    private static int parseEffect(String name) {
+        switch (name) {
+            case "none":
+                return NO_EFFECT;
+            case "slow":
+                return Snake.EFFECT_SLOW;
+            case "haste":
+                return Snake.EFFECT_HASTE;
+            default:
+                throw new IllegalArgumentException("Unknown food effect " + name);
+        }
+    }
+
+    /**
+     * Read a catalog from a file.
+     *
+     * @param path The configuration file.
+     * @return The catalog.
+     * @throws IOException If the file cannot be read.
+     */
+    public static FoodCatalog load(Path path) throws IOException {
+        return parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the catalog given with -Dsnake.foodCatalog=&lt;file&gt;.
+     *
+     * @return The catalog of the file, or the default catalog if there is none.
+     * @throws IllegalArgumentException If the file cannot be read.
+     */
+    public static FoodCatalog fromSystemProperty() {
+        String path = System.getProperty("snake.foodCatalog");
+        if (path == null) {
+            return DEFAULT;
+        }
+        try {
+            return load(Paths.get(path));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the food catalog " + path, e);
+        }
+    }
+
+    /**
+     * Draw the type of a new piece of food.
+     *
+     * @param random The random generator of the match.
+     * @return The type (1 to the number of kinds).
+     */
+    public int sample(Random random) {
+        int draw = random.nextInt(kinds * totalWeight);
+        int column = draw / totalWeight;
+        return 1 + (draw % totalWeight < thresholds[column] ? column : aliases[column]);
+    }
+
+    public int getKinds() {
+        return kinds;
+    }
+
+    public String name(int type) {
+        return names[type];
+    }
+
+    public int growth(int type) {
+        return growths[type];
+    }
+
+    public int effect(int type) {
+        return effects[type];
+    }
+
+    public String sprite(int type) {
+        return sprites[type];
+    }
+
+    /**
+     * @return A number that changes with any property of the kinds, so a replay can check it is played with its catalog.
+     */
+    public int checksum() {
+        int hash = 1;
+        for (int type = 1; type <= kinds; type++) {
+            hash = 31 * hash + names[type].hashCode();
+            hash = 31 * hash + weights[type];
+            hash = 31 * hash + growths[type];
+            hash = 31 * hash + effects[type];
+            hash = 31 * hash + sprites[type].hashCode();
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,318 @@
+package com.mygdx.game;
+
+/**
+ * State of a match between snakes and the rules used to advance it.
+ *
+ * This class does not depend on LibGDX: it can be stepped without a window,
+ * which allows matches to run on servers, in benchmarks and in bulk.
+ * Given the same seed and the same inputs, a match always has the same outcome.
+ *
+ * A match has any number of snakes (two by default): a snake that crashes leaves the match, its body
+ * is taken off the board at the start of the next tick, and the match is over when at most one snake
+ * is left. The snowflake and the lightning act on the opponent whose head is the nearest to the head
+ * of the snake that ate them (see {@link HeadIndex}).
+ */
+public class GameState {
+
+    // Default board dimensions, in grid cells
+    public final static int COLUMNS = 30;
+    public final static int ROWS = 30;
+
+    // Default number of snakes and of pieces of food
+    public final static int PLAYERS = 2;
+    public final static int FOODS = 2;
+
+    /**
+     * Receives the events of a match that are not part of its state (e.g. to play sounds).
+     */
+    public interface Listener {
+        /**
+         * Called when a snake eats a piece of food.
+         *
+         * @param snake The snake that consumed the food.
+         * @param type  The type of the food consumed.
+         */
+        void foodEaten(Snake snake, int type);
+    }
+
+    final int columns; // Number of columns of the board
+    final int rows; // Number of rows of the board
+    final long seed; // Seed of the match
+    final MatchRandom random; // Random generator used for the food, seeded for deterministic matches
+    final Board board; // Occupancy index of the board
+    final HeadIndex heads; // Heads of the snakes, to find the nearest opponent
+    final EffectWheel effects; // Expiry of the effects on the snakes
+
+    final Snake[] snakes; // Snakes of the match (snake i belongs to player i + 1)
+    final FoodCatalog catalog; // Kinds of food of the match
+    final Food[] foods; // Pieces of food on the board
+
+    // 0 = snake is still playing / 1 = snake has crashed / 2 = snake is out, its body was taken off the board
+    final int[] gameEnd; // State of the game for each snake
+
+    long tick; // Number of steps already simulated
+
+    Listener listener; // Optional listener of the match events
+
+    /**
+     * Creates a match between two snakes on the default 30x30 board.
+     *
+     * @param seed Seed of the random generator of the match.
+     */
+    public GameState(long seed) {
+        this(COLUMNS, ROWS, seed);
+    }
+
+    /**
+     * Creates a match between two snakes.
+     *
+     * @param columns Number of columns of the board.
+     * @param rows    Number of rows of the board.
+     * @param seed    Seed of the random generator of the match.
+     */
+    public GameState(int columns, int rows, long seed) {
+        this(columns, rows, PLAYERS, FOODS, seed);
+    }
+
+    /**
+     * Creates a match with the snakes in their starting positions.
+     * Even snakes start on the left side heading right, odd snakes on the right side heading left,
+     * each one on its own row.
+     *
+     * @param columns Number of columns of the board.
+     * @param rows    Number of rows of the board.
+     * @param players Number of snakes.
+     * @param foods   Number of pieces of food on the board at the same time.
+     * @param seed    Seed of the random generator of the match.
+     * @throws IllegalArgumentException If the board has no room for the snakes.
+     */
+    public GameState(int columns, int rows, int players, int foods, long seed) {
+        this(columns, rows, players, foods, FoodCatalog.DEFAULT, seed);
+    }
+
+    /**
+     * Creates a match with the snakes in their starting positions and its own kinds of food.
+     * Even snakes start on the left side heading right, odd snakes on the right side heading left,
+     * each one on its own row.
+     *
+     * @param columns Number of columns of the board.
+     * @param rows    Number of rows of the board.
+     * @param players Number of snakes.
+     * @param foods   Number of pieces of food on the board at the same time.
+     * @param catalog Kinds of food.
+     * @param seed    Seed of the random generator of the match.
+     * @throws IllegalArgumentException If the board has no room for the snakes.
+     */
+    public GameState(int columns, int rows, int players, int foods, FoodCatalog catalog, long seed) {
+        if (players < 1 || foods < 0 || columns < 3 || rows < players + 2) {
+            throw new IllegalArgumentException("No room for " + players + " snakes on a " + columns + "x" + rows + " board");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.seed = seed;
+        this.random = new MatchRandom(seed);
+        this.board = new Board(columns, rows);
+        this.heads = new HeadIndex(columns, rows, players);
+        this.effects = new EffectWheel(1); // The expiries of a tick are processed at the end of the tick before
+        this.catalog = catalog;
+
+        // Initialize snakes and food
+        snakes = new Snake[players];
+        gameEnd = new int[players];
+        for (int i = 0; i < players; i++) {
+            snakes[i] = new Snake(i + 1, board, startX(i), startY(i), i % 2 == 0 ? 1 : -1);
+        }
+        this.foods = new Food[foods];
+        for (int i = 0; i < foods; i++) {
+            this.foods[i] = new Food(i, catalog, board, random);
+        }
+    }
+
+    /**
+     * @param i Index of a snake.
+     * @return Column of the head of the snake at the start of the match.
+     */
+    public int startX(int i) {
+        return i % 2 == 0 ? 1 : columns - 2;
+    }
+
+    /**
+     * @param i Index of a snake.
+     * @return Row of the head of the snake at the start of the match (the rows are spread over the board).
+     */
+    public int startY(int i) {
+        return snakes.length == 1 ? 1 : 1 + (int) ((long) i * (rows - 3) / (snakes.length - 1));
+    }
+
+    /**
+     * Advances the match by one tick.
+     *
+     * @param inputs Mask of the movement keys pressed by each player (see {@link Snake#UP}).
+     */
+    public void step(int[] inputs) {
+        // Take the snakes that crashed in the last tick off the board
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] == 1) {
+                snakes[i].leave();
+                gameEnd[i] = 2;
+            }
+        }
+
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] == 0) {
+                snakes[i].startTick();
+            }
+        }
+
+        // Check if snakes have eaten food
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] == 0) {
+                checkEaten(i);
+            }
+        }
+
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] != 0) {
+                continue;
+            }
+            Snake snake = snakes[i];
+
+            // Calculate new direction
+            snake.dirCalc(inputs[i]);
+
+            // Move the snake if its interval (given by its speed effects) has passed
+            snake.tickMove();
+        }
+
+        // Check if game has ended for each snake
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] == 0) {
+                gameEnd[i] = snakes[i].checkGameEnd();
+            }
+        }
+
+        tick++;
+
+        // Take off the effects that end with this tick, so the next tick (and its controllers) see the new speeds
+        effects.expire(snakes);
+    }
+
+    /**
+     * Put an effect on a snake for EFFECT_DURATION ticks, starting with the current tick.
+     * Effects stack: each one has its own expiry.
+     *
+     * @param snake  The snake.
+     * @param effect Kind of the effect (see {@link Snake#EFFECT_SLOW}).
+     */
+    void addEffect(Snake snake, int effect) {
+        snake.addEffect(effect);
+        effects.add(snake.id - 1, effect, tick + Snake.EFFECT_DURATION);
+    }
+
+    /**
+     * Check if a snake has eaten food and handle the logic.
+     *
+     * @param i Index of the snake to check.
+     */
+    private void checkEaten(int i) {
+        Snake snake = snakes[i];
+        int foodEaten = snake.checkCollideWithFood();
+        if (foodEaten < 0) {
+            return;
+        }
+
+        Food food = foods[foodEaten];
+        Snake target = null;
+        if (food.affectsOpponent()) {
+            if (heads.builtTick != tick) { // The heads do not move while the snakes eat
+                heads.build(snakes, gameEnd, tick);
+            }
+            int nearest = heads.nearest(snakes, i);
+            target = nearest < 0 ? null : snakes[nearest];
+        }
+        int type = food.eaten(this, snake, target);
+        food.renew(board, random);
+
+        if (listener != null) {
+            listener.foodEaten(snake, type);
+        }
+    }
+
+    /**
+     * Checks if the match is over: at most one snake is left (or the only snake crashed).
+     *
+     * @return true if the match is over.
+     */
+    public boolean isOver() {
+        int playing = 0;
+        for (int end : gameEnd) {
+            if (end == 0) {
+                playing++;
+            }
+        }
+        return playing < Math.min(2, snakes.length);
+    }
+
+    /**
+     * Determines the winner of a finished match: the last snake playing.
+     * In case the last snakes crashed at the same time, the size of the snake is used as a tiebreaker
+     * (and the highest number wins a tie).
+     *
+     * @return The number of the player who won (1 for the first snake).
+     */
+    public int winner() {
+        int winner = -1;
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] == 0) {
+                return i + 1;
+            }
+            if (gameEnd[i] == 1 && (winner < 0 || snakes[i].size >= snakes[winner].size)) { // Crashed in the last tick
+                winner = i;
+            }
+        }
+        return winner + 1;
+    }
+
+    /**
+     * @param player Number of the player (1 for the first snake).
+     * @return The snake of the player.
+     */
+    public Snake getSnake(int player) {
+        return snakes[player - 1];
+    }
+
+    /**
+     * @return Number of snakes of the match.
+     */
+    public int getPlayers() {
+        return snakes.length;
+    }
+
+    /**
+     * @param player Number of the player (1 for the first snake).
+     * @return 0 if the snake is still playing, 1 if it crashed in the last tick, 2 if it is out.
+     */
+    public int getGameEnd(int player) {
+        return gameEnd[player - 1];
+    }
+
+    public Food[] getFoods() {
+        return foods;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mygdx.game;
+
+/**
+ * Bot that goes straight for the nearest piece of food, turning only to avoid crashing in the next move.
+ */
+public class GreedyController implements Controller {
+
+    @Override
+    public int input(GameState state, int player) {
+        Snake snake = state.getSnake(player);
+        if (!Controller.movesNextTick(snake)) {
+            return 0;
+        }
+        int x = snake.headX, y = snake.headY;
+
+        // Nearest piece of food on the board
+        Food target = null;
+        int best = Integer.MAX_VALUE;
+        for (Food food : state.foods) {
+            int distance = Math.abs(food.x - x) + Math.abs(food.y - y);
+            if (food.type != 0 && distance < best) {
+                best = distance;
+                target = food;
+            }
+        }
+
+        // Among the directions the snake can take (it cannot turn back), the safe one closest to the food
+        int choice = 0;
+        best = Integer.MAX_VALUE;
+        for (int turn = 0; turn < 3; turn++) {
+            int dx = turn == 0 ? snake.dx : turn == 1 ? -snake.dy : snake.dy;
+            int dy = turn == 0 ? snake.dy : turn == 1 ? snake.dx : -snake.dx;
+            if (!Controller.isSafe(state.board, snake, x + dx, y + dy)) {
+                continue;
+            }
+            int distance = target == null ? turn : Math.abs(target.x - x - dx) + Math.abs(target.y - y - dy);
+            if (distance < best) {
+                best = distance;
+                choice = Controller.toward(dx, dy);
+            }
+        }
+        return choice;
+    }
+}
@@ -0,0 +1,121 @@
+package com.mygdx.game;
+
+import java.util.Arrays;
+
+/**
+ * Spatial hash of the heads of the snakes still playing, used to find the nearest opponent of a snake.
+ *
+ * The board is split into square buckets of BUCKET_SIZE cells and the snakes are sorted by the bucket of
+ * their head (a counting sort, so building the index costs O(snakes + buckets) and does not allocate).
+ * A query looks at the buckets in growing rings around the head and stops as soon as no bucket left can
+ * hold a closer head, so it usually only visits the few buckets around the snake.
+ */
+class HeadIndex {
+
+    final static int BUCKET_SIZE = 16; // Cells of the side of a bucket
+
+    final int bucketColumns, bucketRows; // Number of buckets along each side of the board
+    final int[] bucketStart; // Index in entries of the first snake of each bucket (one more for the end)
+    final int[] entries; // Indexes of the snakes, sorted by bucket
+    long builtTick = -1; // Tick of the match the index was built for (-1 = never)
+
+    /**
+     * Constructor to create an empty index.
+     *
+     * @param columns Number of columns of the board.
+     * @param rows    Number of rows of the board.
+     * @param snakes  Number of snakes of the match.
+     */
+    HeadIndex(int columns, int rows, int snakes) {
+        bucketColumns = (columns + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        bucketRows = (rows + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        bucketStart = new int[bucketColumns * bucketRows + 1];
+        entries = new int[snakes];
+    }
+
+    /**
+     * Index the heads of the snakes that are still playing.
+     *
+     * @param snakes  The snakes of the match.
+     * @param gameEnd State of each snake (only the snakes at 0 are indexed).
+     * @param tick    Tick of the match.
+     */
+    void build(Snake[] snakes, int[] gameEnd, long tick) {
+        Arrays.fill(bucketStart, 0);
+        for (int i = 0; i < snakes.length; i++) {
+            if (gameEnd[i] == 0) {
+                bucketStart[bucket(snakes[i]) + 1]++;
+            }
+        }
+        for (int b = 1; b < bucketStart.length; b++) {
+            bucketStart[b] += bucketStart[b - 1];
+        }
+        for (int i = 0; i < snakes.length; i++) { // bucketStart[b] is used as the cursor of bucket b
+            if (gameEnd[i] == 0) {
+                entries[bucketStart[bucket(snakes[i])]++] = i;
+            }
+        }
+        // Each cursor stopped at the start of the next bucket: shift them back by one bucket
+        System.arraycopy(bucketStart, 0, bucketStart, 1, bucketStart.length - 1);
+        bucketStart[0] = 0;
+        builtTick = tick;
+    }
+
+    /**
+     * Find the opponent whose head is the closest to the head of a snake (Manhattan distance).
+     * Ties go to the snake with the lowest number.
+     *
+     * @param snakes The snakes of the match.
+     * @param from   Index of the snake.
+     * @return Index of the closest opponent, or -1 if no other snake is playing.
+     */
+    int nearest(Snake[] snakes, int from) {
+        int x = snakes[from].headX, y = snakes[from].headY;
+        int bx = clamp(x / BUCKET_SIZE, bucketColumns), by = clamp(y / BUCKET_SIZE, bucketRows);
+        int best = -1, bestDistance = Integer.MAX_VALUE;
+        int maxRing = Math.max(Math.max(bx, bucketColumns - 1 - bx), Math.max(by, bucketRows - 1 - by));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Heads in this ring are at least (ring - 1) * BUCKET_SIZE + 1 cells away along one of the axes
+            if (best >= 0 && (ring - 1) * BUCKET_SIZE + 1 > bestDistance) {
+                break;
+            }
+            for (int cy = by - ring; cy <= by + ring; cy++) {
+                if (cy < 0 || cy >= bucketRows) {
+                    continue;
+                }
+                boolean edge = cy == by - ring || cy == by + ring;
+                for (int cx = bx - ring; cx <= bx + ring; cx += edge || ring == 0 ? 1 : 2 * ring) {
+                    if (cx < 0 || cx >= bucketColumns) {
+                        continue;
+                    }
+                    int b = cy * bucketColumns + cx;
+                    for (int e = bucketStart[b]; e < bucketStart[b + 1]; e++) {
+                        int i = entries[e];
+                        if (i == from) {
+                            continue;
+                        }
+                        int distance = Math.abs(snakes[i].headX - x) + Math.abs(snakes[i].headY - y);
+                        if (distance < bestDistance || distance == bestDistance && i < best) {
+                            best = i;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param snake A snake.
+     * @return The bucket of its head (heads just outside of the board go to the closest bucket).
+     */
+    private int bucket(Snake snake) {
+        return clamp(snake.headY / BUCKET_SIZE, bucketRows) * bucketColumns + clamp(snake.headX / BUCKET_SIZE, bucketColumns);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
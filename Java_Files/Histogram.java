@@ -0,0 +1,103 @@
+package com.mygdx.game;
+
+import java.util.Arrays;
+
+/**
+ * Counts values (e.g. durations in nanoseconds) in buckets whose width grows with the values: each power of two
+ * is split in SUB_BUCKETS buckets, so any value is known within 1/SUB_BUCKETS of itself, from 0 to Long.MAX_VALUE,
+ * with a fixed array of a few hundred counters.
+ *
+ * Recording a value is a few arithmetic operations and never allocates, so it can be done at every tick.
+ * The histogram is not thread-safe.
+ */
+public class Histogram {
+
+    public final static int SUB_BUCKET_BITS = 3;
+    public final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Buckets of each power of two
+    final static int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    final long[] counts = new long[BUCKETS];
+    long count; // Values recorded
+    long total; // Sum of the values
+    long max; // Biggest value
+
+    /**
+     * Count a value.
+     *
+     * @param value The value (negative values are counted as 0).
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Forget all the values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * @param value A value (0 or more).
+     * @return Bucket of the value.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) (value >>> (exponent - SUB_BUCKET_BITS)) % SUB_BUCKETS;
+    }
+
+    /**
+     * @param bucket A bucket.
+     * @return Biggest value counted in the bucket.
+     */
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @param fraction Fraction of the values (e.g. 0.99).
+     * @return A value at or above the given fraction of the values (at most 1/SUB_BUCKETS above), or 0 if none was recorded.
+     */
+    public long percentile(double fraction) {
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen > 0 && seen >= fraction * count) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return Average of the values, or 0 if none was recorded.
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+}
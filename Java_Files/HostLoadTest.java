@@ -0,0 +1,75 @@
+package com.mygdx.game;
+
+import java.util.ArrayList;
+
+/**
+ * Load test of a {@link MatchHost} in a single process: thousands of rooms with scripted players that go around
+ * a square (so the matches never end), slow rooms whose listener takes most of a tick period, and rooms
+ * closed and created every second. Prints the report of the host every second.
+ *
+ * The rooms that are not slow should keep a lag well under one tick period whatever the slow rooms do.
+ * By default there is one slow room, which the slow lane can carry; with more slow rooms than that the slow lane
+ * is overloaded, and only its own rooms should fall behind.
+ */
+public class HostLoadTest {
+
+    public final static long SLOW_LISTENER_NANOS = 8_000_000; // Time taken by the listener of a slow room at each tick
+
+    /**
+     * Run the load test.
+     *
+     * @param args Optional number of rooms (default 2000), duration in seconds (default 10), number of slow rooms
+     *             (default 1, more overload the slow lane) and number of shards (default one per core).
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int slowCount = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int shards = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        Room.Listener scripted = room -> {
+            GameState state = room.getState();
+            for (int i = 0; i < state.getPlayers(); i++) {
+                room.setInput(i + 1, AllocationProbe.aroundStart(state, i));
+            }
+        };
+        Room.Listener slow = room -> {
+            scripted.ticked(room);
+            long end = System.nanoTime() + SLOW_LISTENER_NANOS;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        };
+
+        long slowLoad = slowCount * SLOW_LISTENER_NANOS * TickClock.TICKS_PER_SECOND / 10_000_000; // Percent of a core
+        if (slowLoad > 100) {
+            System.out.println("The slow rooms need " + slowLoad + "% of the slow lane: they will fall behind");
+        }
+
+        ArrayList<Room> rooms = new ArrayList<>(); // Normal rooms
+        ArrayList<Room> slowRooms = new ArrayList<>();
+        try (MatchHost host = new MatchHost(shards, TickClock.TICKS_PER_SECOND)) {
+            host.start();
+            long seed = 0;
+            for (int i = 0; i < roomCount; i++) {
+                rooms.add(host.createRoom(GameState.COLUMNS, GameState.ROWS, 2, 2, seed++, scripted));
+            }
+            for (int i = 0; i < slowCount; i++) {
+                slowRooms.add(host.createRoom(GameState.COLUMNS, GameState.ROWS, 2, 2, seed++, slow));
+            }
+
+            for (int second = 1; second <= seconds; second++) {
+                Thread.sleep(1000);
+                // Churn: replace one room in a hundred
+                for (int i = 0; i < roomCount / 100; i++) {
+                    int index = (int) (seed * 31 % rooms.size());
+                    rooms.get(index).close();
+                    rooms.set(index, host.createRoom(GameState.COLUMNS, GameState.ROWS, 2, 2, seed++, scripted));
+                }
+                System.out.println("Second " + second + ": " + host.report(rooms));
+            }
+            System.out.println("Slow rooms: " + host.report(slowRooms).replaceFirst("(?s).*\n  Rooms", "rooms"));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.mygdx.game;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One thread of a {@link MatchHost}, ticking the rooms it owns.
+ *
+ * The rooms wait for their next tick in a tick wheel: a circular array of time slots, each one holding a
+ * linked list of the rooms due in it, so scheduling a room costs O(1) whatever the number of rooms is.
+ * When the time of a slot has passed, its rooms move to the deque of the rooms ready to tick, which are ticked
+ * oldest first. A shard with nothing ready steals ready rooms from the other shards (the room then belongs to
+ * the thief), so a shard busy with a slow tick does not hold back the rooms waiting behind it.
+ *
+ * New rooms arrive through a lock-free queue, so creating a room never waits for a shard.
+ */
+class HostShard implements Runnable {
+
+    final MatchHost host;
+    final int index; // Number of the shard
+    final boolean slowLane; // Shard of the rooms whose ticks are too slow (it neither steals nor is stolen from)
+    final Thread thread;
+
+    final ConcurrentLinkedQueue<Room> inbox = new ConcurrentLinkedQueue<>(); // Rooms given to this shard
+    final RoomDeque ready = new RoomDeque(); // Rooms whose tick is due
+    final Room[] wheel; // First room of each slot of the tick wheel
+    long cursor; // Next slot of the wheel to be moved to the ready rooms (absolute slot number)
+
+    // Statistics
+    final AtomicInteger rooms = new AtomicInteger(); // Rooms owned by the shard
+    volatile long busyNanos; // Time spent ticking rooms
+    volatile long ticks; // Ticks simulated
+    volatile long steals; // Rooms taken from other shards
+    long sampledBusyNanos, sampledAt; // Values at the last call to sampleUtilization
+
+    /**
+     * Constructor of a shard (its thread is started by the host).
+     *
+     * @param host     The host.
+     * @param index    Number of the shard.
+     * @param slowLane True for the shard of the slow rooms.
+     */
+    HostShard(MatchHost host, int index, boolean slowLane) {
+        this.host = host;
+        this.index = index;
+        this.slowLane = slowLane;
+        // The wheel covers two tick periods, so a room is never scheduled further than one turn away
+        int slots = (int) Math.max(2, 2 * host.tickNanos / MatchHost.SLOT_NANOS);
+        wheel = new Room[Integer.highestOneBit(slots - 1) * 2];
+        thread = new Thread(this, slowLane ? "host-slow-lane" : "host-shard-" + index);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Give a room to the shard. Can be called by any thread.
+     *
+     * @param room The room.
+     */
+    void give(Room room) {
+        rooms.incrementAndGet();
+        inbox.offer(room);
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        cursor = System.nanoTime() / MatchHost.SLOT_NANOS;
+        sampledAt = System.nanoTime();
+        while (host.running) {
+            long now = System.nanoTime();
+            for (Room room = inbox.poll(); room != null; room = inbox.poll()) {
+                if (room.due == 0) {
+                    room.due = now;
+                }
+                schedule(room);
+            }
+            while (cursor < now / MatchHost.SLOT_NANOS) { // The time of this slot has passed
+                int slot = (int) cursor & (wheel.length - 1);
+                for (Room room = wheel[slot]; room != null; ) {
+                    Room next = room.next;
+                    room.next = null;
+                    ready.push(room);
+                    room = next;
+                }
+                wheel[slot] = null;
+                cursor++;
+            }
+
+            Room room = ready.poll();
+            if (room == null && !slowLane) {
+                room = steal();
+            }
+            if (room != null) {
+                visit(room);
+            } else {
+                LockSupport.parkNanos((cursor + 1) * MatchHost.SLOT_NANOS - System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Put a room in the slot of the wheel of its next tick (or in the ready rooms if it is already due).
+     *
+     * @param room The room.
+     */
+    private void schedule(Room room) {
+        long slot = room.due / MatchHost.SLOT_NANOS;
+        if (slot < cursor) {
+            ready.push(room);
+            return;
+        }
+        int i = (int) slot & (wheel.length - 1);
+        room.next = wheel[i];
+        wheel[i] = room;
+    }
+
+    /**
+     * Take a ready room from another shard.
+     *
+     * @return The room, or null if no other shard has a ready room.
+     */
+    private Room steal() {
+        HostShard[] shards = host.shards;
+        for (int i = 1; i < shards.length; i++) {
+            HostShard victim = shards[(index + i) % shards.length];
+            Room room = victim.ready.steal();
+            if (room != null) {
+                victim.rooms.decrementAndGet();
+                rooms.incrementAndGet();
+                steals++;
+                return room;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tick a room as many times as it is late (up to MAX_TICKS_PER_FRAME) and schedule its next tick.
+     *
+     * @param room The room.
+     */
+    private void visit(Room room) {
+        if (room.closed) {
+            drop(room);
+            return;
+        }
+        long start = System.nanoTime();
+        if (room.due > start) { // Came out of the wheel one turn early (the shard was busy for a long time)
+            schedule(room);
+            return;
+        }
+        room.recordLag(start - room.due);
+        int count = 0;
+        while (room.due <= start && count < TickClock.MAX_TICKS_PER_FRAME && !room.state.isOver()) {
+            room.tick();
+            room.due += host.tickNanos;
+            count++;
+        }
+        if (room.due <= start) { // Too late to catch up: the missed ticks are dropped
+            room.skippedTicks += (start - room.due) / host.tickNanos + 1;
+            room.due = start + host.tickNanos;
+        }
+        long end = System.nanoTime();
+        busyNanos += end - start;
+        ticks += count;
+        if (count > 0) {
+            room.recordTicks(end - start, count);
+        }
+
+        if (room.state.isOver()) {
+            drop(room);
+            if (room.listener != null) {
+                room.listener.finished(room);
+            }
+        } else if (!slowLane && ticks > MatchHost.SLOW_WARMUP_TICKS && room.visits >= MatchHost.SLOW_MIN_VISITS
+                && room.tickNanos > host.slowTickNanos) {
+            // Its ticks would delay the other rooms of the shard
+            rooms.decrementAndGet();
+            host.slowLane.give(room);
+        } else {
+            schedule(room);
+        }
+    }
+
+    /**
+     * Remove a room from the shard and from the host.
+     *
+     * @param room The room.
+     */
+    private void drop(Room room) {
+        room.finished = true;
+        rooms.decrementAndGet();
+        host.roomCount.decrementAndGet();
+    }
+
+    /**
+     * Fraction of the time spent ticking rooms since the last call. Only called by one thread (the one reporting).
+     *
+     * @return Utilization between 0 and 1.
+     */
+    double sampleUtilization() {
+        long now = System.nanoTime(), busy = busyNanos;
+        double utilization = now > sampledAt ? (double) (busy - sampledBusyNanos) / (now - sampledAt) : 0;
+        sampledAt = now;
+        sampledBusyNanos = busy;
+        return Math.min(1, utilization);
+    }
+}
@@ -0,0 +1,90 @@
+package com.mygdx.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keys pressed, passed from the render thread (which receives the input events) to the simulation thread
+ * (which gives them to the players, see {@link SimulationThread}).
+ *
+ * The queue is a ring with one writer and one reader: each side only writes its own index, and reads the index
+ * of the other side to know how far it can go. Adding and taking a key never lock nor wait, whatever the other
+ * thread is doing: when the ring is full, the key is dropped and counted.
+ */
+public class KeyEventQueue {
+
+    final int[] keys; // Key of each event (see Input.Keys)
+    final long[] times; // Time each key was pressed (System.nanoTime())
+    final int mask; // Capacity - 1, to wrap the indices
+
+    final AtomicLong head = new AtomicLong(); // Next event to take (only written by the reader)
+    final AtomicLong tail = new AtomicLong(); // Next event to add (only written by the writer)
+
+    long dropped; // Keys dropped because the ring was full (only written by the writer)
+
+    /**
+     * Constructor of an empty queue.
+     *
+     * @param capacity Keys kept at most (rounded up to a power of two).
+     */
+    public KeyEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) * 2;
+        keys = new int[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Add a key after the keys waiting. Only called by the writer.
+     *
+     * @param key  The key (see Input.Keys).
+     * @param time Time the key was pressed (System.nanoTime()).
+     * @return false if the queue was full and the key was dropped.
+     */
+    public boolean offer(int key, long time) {
+        long last = tail.get();
+        if (last - head.get() == keys.length) {
+            dropped++;
+            return false;
+        }
+        int index = (int) last & mask;
+        keys[index] = key;
+        times[index] = time;
+        tail.lazySet(last + 1); // The event is written before the reader can see it
+        return true;
+    }
+
+    /**
+     * @return true if no key is waiting. Only called by the reader.
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * @return Key of the first event waiting (the queue must not be empty). Only called by the reader.
+     */
+    public int key() {
+        return keys[(int) head.get() & mask];
+    }
+
+    /**
+     * @return Time of the first event waiting (the queue must not be empty). Only called by the reader.
+     */
+    public long time() {
+        return times[(int) head.get() & mask];
+    }
+
+    /**
+     * Take off the first event waiting, once read. Only called by the reader.
+     */
+    public void remove() {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * @return Keys dropped because the queue was full (read by the writer, or once the writer stopped).
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,72 @@
+package com.mygdx.game;
+
+/**
+ * A player on the keyboard: the four movement keys bound to the player are received as events
+ * (see {@link SnakeGame#keyDown}), passed to the thread of the match (see {@link SimulationThread}) and queued,
+ * then given to the match one turn per move (see {@link TurnQueue}).
+ */
+public class KeyboardController implements Controller {
+
+    final int up, down, left, right; // Key bindings (see Input.Keys)
+    final TurnQueue turns = new TurnQueue(); // Keys pressed and not taken yet
+
+    /**
+     * Constructor to bind the movement keys.
+     *
+     * @param up    Key binding for moving up.
+     * @param down  Key binding for moving down.
+     * @param left  Key binding for moving left.
+     * @param right Key binding for moving right.
+     */
+    public KeyboardController(int up, int down, int left, int right) {
+        this.up = up;
+        this.down = down;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * @param keycode A key (see Input.Keys).
+     * @return Mask of the movement (see {@link Snake#UP}), or 0 if the key is not bound to this player.
+     */
+    int mask(int keycode) {
+        return keycode == up ? Snake.UP : keycode == down ? Snake.DOWN
+                : keycode == left ? Snake.LEFT : keycode == right ? Snake.RIGHT : 0;
+    }
+
+    /**
+     * @param keycode A key (see Input.Keys).
+     * @return true if the key is one of the movement keys of the player. Can be called from any thread.
+     */
+    public boolean binds(int keycode) {
+        return mask(keycode) != 0;
+    }
+
+    /**
+     * Queue a key pressed, if it is bound to this player. Called by the thread of the match.
+     *
+     * @param keycode The key (see Input.Keys).
+     * @param time    Time the key was pressed (System.nanoTime()).
+     * @return true if the key is one of the movement keys of the player.
+     */
+    public boolean keyDown(int keycode, long time) {
+        int mask = mask(keycode);
+        if (mask == 0) {
+            return false;
+        }
+        turns.push(mask, time);
+        return true;
+    }
+
+    /**
+     * Forget the keys pressed and not taken yet.
+     */
+    public void reset() {
+        turns.clear();
+    }
+
+    @Override
+    public int input(GameState state, int player) {
+        return turns.next(state.getSnake(player), System.nanoTime());
+    }
+}
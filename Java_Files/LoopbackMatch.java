@@ -0,0 +1,91 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Plays a networked match on a single machine: a {@link MatchServer} and two {@link MatchClient}s
+ * talking over the loopback interface, with scripted players that go around a square.
+ * Prints the statistics of the server and of the clients at the end.
+ *
+ * With an input delay, the clients predict the match and roll back when the server disagrees
+ * (see {@link RollbackSession}); otherwise they just answer each state received.
+ */
+public class LoopbackMatch {
+
+    /**
+     * Run the match.
+     *
+     * @param args Optional number of ticks to play (default 1000) and input delay of the predicting clients
+     *             (no prediction if not given).
+     * @throws Exception If the network fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int inputDelay = args.length > 1 ? Integer.parseInt(args[1]) : -1;
+
+        MatchServer server = new MatchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                42, TickClock.TICKS_PER_SECOND);
+        Thread serverThread = server.start();
+        InetSocketAddress address = server.getAddress();
+
+        MatchClient[] clients = {new MatchClient(address), new MatchClient(address)};
+        TickClock[] clocks = new TickClock[clients.length];
+        try {
+            while (clients[0].getTick() < ticks && !clients[0].isOver()) {
+                for (int i = 0; i < clients.length; i++) {
+                    MatchClient client = clients[i];
+                    int states = client.poll(1);
+                    if (inputDelay < 0) {
+                        if (states > 0) { // Answer each new state with the keys for the next tick
+                            sendInput(client, client.getState());
+                        }
+                        continue;
+                    }
+                    if (client.rollback == null && client.getTick() > 0) { // The match has started
+                        client.startPrediction(inputDelay, RollbackSession.DEFAULT_HISTORY);
+                        clocks[i] = new TickClock(TickClock.TICKS_PER_SECOND, TickClock.MAX_TICKS_PER_FRAME);
+                    }
+                    if (client.rollback != null) { // One frame of the client: predict, then read the keys
+                        int count = clocks[i].advance(System.nanoTime());
+                        client.rollback.advance(count);
+                        if (count > 0) {
+                            sendInput(client, client.rollback.getState());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Client stopped: " + e);
+        }
+
+        server.stop();
+        serverThread.join();
+        System.out.println(server.report());
+        for (MatchClient client : clients) {
+            System.out.printf("Client %d: tick %d, RTT %.3f ms%n", client.getPlayer(), client.getTick(),
+                    client.getRttNanos() / 1e6);
+            if (client.rollback != null) {
+                System.out.println("  Prediction: " + client.rollback.report());
+            }
+            client.close();
+        }
+    }
+
+    /**
+     * Send the keys pressed by a scripted player: each one goes around a square next to its starting position.
+     *
+     * @param client The client of the player.
+     * @param state  The match as seen by the client.
+     */
+    private static void sendInput(MatchClient client, GameState state) {
+        if (client.getPlayer() == 0) {
+            return;
+        }
+        client.sendInput(AllocationProbe.aroundStart(state, client.getPlayer() - 1));
+        if (state.tick % MatchServer.PING_INTERVAL == 0) {
+            client.ping();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Watches a networked match with many spectators on a single machine: a {@link MatchServer}, two scripted
+ * players (see {@link LoopbackMatch}) on their own thread and hundreds of {@link MatchClient}s that only
+ * receive the states, all over the loopback interface. A few spectators are slow: they stop reading for
+ * SLOW_PAUSE_TICKS ticks from the start of the match, so they fall more than {@link SpectatorFeed#MAX_LAG}
+ * messages behind and the server skips them to the last keyframe.
+ *
+ * After the given number of ticks the players stop steering, so their snakes crash and the match ends.
+ * The spectators then read the last states, and the check fails (exit code 1) unless every spectator ends
+ * with the same match as the players and the slow spectators were skipped to a keyframe.
+ * Prints the statistics of the server, with the cost of sending each tick to all the spectators.
+ */
+public class LoopbackSpectators {
+
+    public final static int SLOW_PAUSE_TICKS = 600; // Ticks a slow spectator does not read (the kernel buffers hold hundreds of deltas)
+    public final static int SLOW_RECEIVE_BUFFER = 1024; // Socket buffer of a slow spectator, so it falls behind quickly
+    public final static long END_TIMEOUT_NANOS = 10_000_000_000L; // Time given to the match to end and to the spectators to catch up
+
+    static volatile long playersTick; // Last tick received by the players (written by their thread)
+
+    /**
+     * Run the match.
+     *
+     * @param args Optional number of spectators (default 300), number of ticks to play (default 1000, more than
+     *             SLOW_PAUSE_TICKS when there are slow spectators) and number of slow spectators among them (default 10).
+     * @throws Exception If the network fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int spectatorCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int slowCount = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        MatchServer server = new MatchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                42, TickClock.TICKS_PER_SECOND);
+        Thread serverThread = server.start();
+        InetSocketAddress address = server.getAddress();
+
+        // The first two clients are the players, the match starts as soon as they are connected
+        MatchClient[] players = {new MatchClient(address), new MatchClient(address)};
+        Thread playing = new Thread(() -> play(players, ticks), "players");
+        playing.start();
+        MatchClient[] spectators = new MatchClient[spectatorCount];
+        for (int i = 0; i < spectatorCount; i++) {
+            spectators[i] = new MatchClient(address);
+            if (i < slowCount) {
+                spectators[i].connection.channel.socket().setReceiveBufferSize(SLOW_RECEIVE_BUFFER);
+            }
+        }
+
+        // Watch the match; the slow spectators only read once the match has gone SLOW_PAUSE_TICKS ticks without them
+        boolean[] failed = new boolean[spectatorCount];
+        long start = System.nanoTime();
+        while (playing.isAlive()) {
+            boolean slowReading = playersTick >= SLOW_PAUSE_TICKS;
+            for (int i = 0; i < spectatorCount; i++) {
+                if (i >= slowCount || slowReading) {
+                    poll(spectators, failed, i);
+                }
+            }
+            Thread.yield();
+        }
+        playing.join();
+
+        // The match is over and the server stopped ticking: let every spectator read the last states
+        long end = System.nanoTime() + END_TIMEOUT_NANOS;
+        while (System.nanoTime() < end && !allCaughtUp(players[0], spectators, failed)) {
+            for (int i = 0; i < spectatorCount; i++) {
+                poll(spectators, failed, i);
+            }
+            Thread.sleep(1);
+        }
+        server.stop();
+        serverThread.join();
+
+        System.out.println(server.report());
+        System.out.printf("%d spectators, %d slow, %.1f s%n", spectatorCount, slowCount, (System.nanoTime() - start) / 1e9);
+        int same = 0;
+        for (int i = 0; i < spectatorCount; i++) {
+            if (!failed[i] && spectators[i].getTick() == players[0].getTick()
+                    && sameMatch(spectators[i].getState(), players[0].getState())) {
+                same++;
+            }
+        }
+        System.out.println(same + " of " + spectatorCount + " spectators end at tick " + players[0].getTick()
+                + " with the match of the players");
+        for (MatchClient client : players) {
+            client.close();
+        }
+        for (MatchClient spectator : spectators) {
+            spectator.close();
+        }
+
+        boolean passed = same == spectatorCount;
+        if (!players[0].isOver()) {
+            System.err.println("The match did not end");
+            passed = false;
+        }
+        if (slowCount > 0 && server.feed.skips == 0) {
+            System.err.println("No spectator fell more than " + SpectatorFeed.MAX_LAG + " messages behind: "
+                    + "the match ended at tick " + players[0].getTick() + ", before the slow spectators read again");
+            passed = false;
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Play the match: answer each new state received by the players with their keys for the next tick.
+     * After the given number of ticks, stop steering and wait for the end of the match (the snakes go
+     * straight until one of them crashes).
+     *
+     * @param players The clients of the players.
+     * @param ticks   Number of ticks to play.
+     */
+    private static void play(MatchClient[] players, int ticks) {
+        long end = 0; // Time limit to wait for the end of the match (0 = still playing)
+        try {
+            while (!players[0].isOver() && (end == 0 || System.nanoTime() < end)) {
+                for (MatchClient player : players) {
+                    if (player.poll(1) > 0 && end == 0) {
+                        sendInput(player, player.getState());
+                    }
+                }
+                playersTick = players[0].getTick();
+                if (end == 0 && players[0].getTick() >= ticks) {
+                    for (MatchClient player : players) {
+                        player.sendInput(0); // Release the keys: the snakes go straight
+                    }
+                    end = System.nanoTime() + END_TIMEOUT_NANOS;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Player stopped: " + e);
+        }
+    }
+
+    /**
+     * Read what a spectator received. A spectator whose connection fails is counted as failed, and no longer read,
+     * without stopping the others.
+     *
+     * @param spectators The spectators.
+     * @param failed     Spectators whose connection failed.
+     * @param i          Index of the spectator.
+     */
+    private static void poll(MatchClient[] spectators, boolean[] failed, int i) {
+        if (failed[i]) {
+            return;
+        }
+        try {
+            spectators[i].poll(0);
+        } catch (IOException e) {
+            System.err.println("Spectator " + i + " stopped: " + e);
+            failed[i] = true;
+        }
+    }
+
+    /**
+     * @return true if every spectator still connected received the last state of the player.
+     */
+    private static boolean allCaughtUp(MatchClient player, MatchClient[] spectators, boolean[] failed) {
+        for (int i = 0; i < spectators.length; i++) {
+            if (!failed[i] && spectators[i].getTick() != player.getTick()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if both matches have the same snakes, food and scores.
+     */
+    private static boolean sameMatch(GameState a, GameState b) {
+        ByteBuffer first = ByteBuffer.allocate(SnapshotCodec.maxBytes(a));
+        ByteBuffer second = ByteBuffer.allocate(SnapshotCodec.maxBytes(b));
+        new SnapshotCodec().encodeFull(a, first);
+        new SnapshotCodec().encodeFull(b, second);
+        first.flip();
+        second.flip();
+        return first.equals(second);
+    }
+
+    /**
+     * Send the keys of a scripted player, which goes around a square next to its starting position.
+     *
+     * @param client The client of the player.
+     * @param state  The match as seen by the client.
+     */
+    private static void sendInput(MatchClient client, GameState state) {
+        client.sendInput(AllocationProbe.aroundStart(state, client.getPlayer() - 1));
+    }
+}
@@ -0,0 +1,190 @@
+package com.mygdx.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Client of a networked match.
+ *
+ * The client does not simulate anything: it sends the keys pressed by its player and keeps a copy of
+ * the match, updated with the snapshots received from the {@link MatchServer}. It never blocks, so {@link #poll(long)} can be
+ * called once per frame from the game loop.
+ */
+public class MatchClient implements Closeable {
+
+    final Selector selector;
+    final Connection connection;
+    final SnapshotCodec codec = new SnapshotCodec(); // Decoder of the states received
+
+    int player; // Number of the player controlled by this client (0 = not known yet / spectator)
+    GameState state; // Copy of the match (null = not received yet)
+    int states; // Number of states received
+    RollbackSession rollback; // Prediction of the match (null = the client only shows the states received)
+
+    /**
+     * Constructor to connect to a server.
+     *
+     * @param address Address of the server.
+     * @throws IOException If the server cannot be reached.
+     */
+    public MatchClient(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address); // Blocking connect, then non-blocking
+        connection = new Connection(channel);
+        selector = Selector.open();
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    /**
+     * Send the keys pressed by the player for the next tick.
+     *
+     * @param mask Mask of the movement keys pressed (see {@link Snake#UP}).
+     */
+    public void sendInput(int mask) {
+        // Without prediction, the keys are for the tick following the last state received
+        long tick = rollback != null ? rollback.addLocalInput(mask) : getTick();
+        connection.beginMessage(Connection.INPUT, 9).putLong(tick).put((byte) mask);
+        connection.endMessage();
+    }
+
+    /**
+     * Start predicting the match from the last state received (see {@link RollbackSession}).
+     *
+     * @param inputDelay Ticks between reading the keys and applying them.
+     * @param history    Number of ticks that can be rewound.
+     * @return The prediction, to be advanced every frame.
+     */
+    public RollbackSession startPrediction(int inputDelay, int history) {
+        rollback = new RollbackSession(state, player, inputDelay, history);
+        return rollback;
+    }
+
+    /**
+     * Measure the round-trip time to the server; the answer is handled by {@link #poll(long)}.
+     */
+    public void ping() {
+        connection.ping();
+    }
+
+    /**
+     * Send the pending messages and handle the messages received.
+     *
+     * @param timeoutMillis Time to wait for the network (0 = do not wait).
+     * @return Number of states received.
+     * @throws IOException If the connection is broken or closed by the server.
+     */
+    public int poll(long timeoutMillis) throws IOException {
+        if (timeoutMillis > 0) {
+            selector.select(timeoutMillis);
+        } else {
+            selector.selectNow();
+        }
+        int received = states;
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (key.isReadable()) {
+                if (!connection.read()) {
+                    throw new IOException("Connection closed by the server");
+                }
+                for (int type = connection.nextMessage(); type != -1; type = connection.nextMessage()) {
+                    receive(type, connection.in);
+                }
+                connection.endRead();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        }
+        return states - received;
+    }
+
+    /**
+     * Handle a message received from the server.
+     *
+     * @param type Type of the message.
+     * @param body The body of the message.
+     */
+    private void receive(int type, ByteBuffer body) {
+        switch (type) {
+            case Connection.WELCOME:
+                player = body.get();
+                int columns = body.getShort(), rows = body.getShort();
+                state = new GameState(columns, rows, 0); // Replaced by the first snapshot
+                break;
+            case Connection.STATE:
+                codec.decode(body, state);
+                states++;
+                break;
+            case Connection.PING:
+                long sentAt = body.getLong();
+                connection.beginMessage(Connection.PONG, 8).putLong(sentAt);
+                connection.endMessage();
+                break;
+            case Connection.PONG:
+                connection.pong(body.getLong());
+                break;
+            case Connection.INPUTS:
+                long tick = body.getLong();
+                int input1 = body.get(), input2 = body.get();
+                if (rollback != null) {
+                    rollback.confirm(tick, input1, input2);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return true if the last state received is the end of the match.
+     */
+    public boolean isOver() {
+        return state != null && state.isOver();
+    }
+
+    /**
+     * @param player Number of the player (1 or 2).
+     * @return The snake of the player in the last state received.
+     */
+    public Snake getSnake(int player) {
+        return state.getSnake(player);
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return Tick of the last state received (-1 = not received yet).
+     */
+    public long getTick() {
+        return state == null ? -1 : state.tick;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * @return The last round-trip time measured, in nanoseconds (-1 = not measured yet).
+     */
+    public long getRttNanos() {
+        return connection.rttNanos;
+    }
+
+    /**
+     * Close the connection.
+     */
+    @Override
+    public void close() throws IOException {
+        connection.close();
+        selector.close();
+    }
+}
@@ -0,0 +1,154 @@
+package com.mygdx.game;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Host of many matches at the same time, spread over all the cores.
+ *
+ * Each room is owned by one shard thread (see {@link HostShard}) that ticks it at the rate of the host.
+ * Idle shards steal the ready rooms of the busy ones, and a room whose ticks take too long is moved to a
+ * shard of its own (the slow lane), so a slow room never delays the others. Creating and closing a room
+ * only touches lock-free structures.
+ *
+ * Usage:
+ * <pre>
+ * MatchHost host = new MatchHost(0, 60);
+ * host.start();
+ * Room room = host.createRoom(30, 30, 2, 2, seed, listener);
+ * room.setInput(1, Snake.UP);
+ * </pre>
+ */
+public class MatchHost implements Closeable {
+
+    public final static long SLOT_NANOS = 500_000; // Length of a slot of the tick wheels
+    public final static int SLOW_TICK_FRACTION = 4; // A room is slow when a tick takes more than this fraction of the period
+    public final static int SLOW_WARMUP_TICKS = 120; // Ticks of a shard before its rooms can be found slow (the code is warming up)
+    public final static int SLOW_MIN_VISITS = 4; // Visits of a room before it can be found slow (its average tick time has settled)
+
+    final long tickNanos; // Period of the ticks
+    final long slowTickNanos; // Duration of a tick above which a room moves to the slow lane
+    final HostShard[] shards; // Shards of the normal rooms
+    final HostShard slowLane; // Shard of the slow rooms
+
+    final AtomicInteger nextId = new AtomicInteger(); // Number of the next room (also used to choose its shard)
+    final AtomicInteger roomCount = new AtomicInteger(); // Rooms being ticked
+
+    volatile boolean running = true;
+
+    /**
+     * Constructor of a host (call {@link #start()} to start ticking the rooms).
+     *
+     * @param shards         Number of shard threads (0 = one per core).
+     * @param ticksPerSecond Number of ticks per second of every room.
+     */
+    public MatchHost(int shards, int ticksPerSecond) {
+        if (shards <= 0) {
+            shards = Runtime.getRuntime().availableProcessors();
+        }
+        tickNanos = 1_000_000_000L / ticksPerSecond;
+        slowTickNanos = tickNanos / SLOW_TICK_FRACTION;
+        this.shards = new HostShard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new HostShard(this, i, false);
+        }
+        slowLane = new HostShard(this, shards, true);
+    }
+
+    /**
+     * Start the threads of the shards.
+     */
+    public void start() {
+        for (HostShard shard : shards) {
+            shard.thread.start();
+        }
+        slowLane.thread.start();
+    }
+
+    /**
+     * Create a room and start ticking it. Can be called by any thread.
+     *
+     * @param columns  Number of columns of the board.
+     * @param rows     Number of rows of the board.
+     * @param players  Number of snakes.
+     * @param foods    Number of pieces of food.
+     * @param seed     Seed of the match.
+     * @param listener Optional listener of the ticks (null = none).
+     * @return The room.
+     */
+    public Room createRoom(int columns, int rows, int players, int foods, long seed, Room.Listener listener) {
+        int id = nextId.getAndIncrement();
+        Room room = new Room(id, new GameState(columns, rows, players, foods, seed), listener);
+        roomCount.incrementAndGet();
+        shards[Math.floorMod(id, shards.length)].give(room);
+        return room;
+    }
+
+    /**
+     * @return Number of rooms being ticked.
+     */
+    public int getRoomCount() {
+        return roomCount.get();
+    }
+
+    /**
+     * Build a report of the shards and of the delays of some rooms. The utilization of the shards is measured since
+     * the last report, so this should be called by a single thread.
+     *
+     * @param rooms Rooms whose delays are summarized.
+     * @return One line per shard and one line for the rooms.
+     */
+    public String report(Iterable<Room> rooms) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Host: %d rooms", roomCount.get()));
+        for (HostShard shard : shards) {
+            appendShard(report, shard);
+        }
+        appendShard(report, slowLane);
+
+        long count = 0, visits = 0, lagTotal = 0, lagMax = 0, skipped = 0, late = 0;
+        for (Room room : rooms) {
+            if (room.finished) {
+                continue;
+            }
+            count++;
+            visits += room.visits;
+            lagTotal += room.lagTotalNanos;
+            lagMax = Math.max(lagMax, room.maxLagNanos);
+            skipped += room.skippedTicks;
+            if (room.lagNanos > tickNanos) {
+                late++;
+            }
+        }
+        report.append(String.format("%n  Rooms: %d, lag %.3f ms on average, %.3f ms max, %d late, %d ticks skipped",
+                count, visits == 0 ? 0 : lagTotal / 1e6 / visits, lagMax / 1e6, late, skipped));
+        return report.toString();
+    }
+
+    private void appendShard(StringBuilder report, HostShard shard) {
+        report.append(String.format("%n  %s: %d rooms, %.0f%% busy, %d ticks, %d steals",
+                shard.thread.getName(), shard.rooms.get(), shard.sampleUtilization() * 100, shard.ticks, shard.steals));
+    }
+
+    /**
+     * Stop ticking the rooms and wait for the threads of the shards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (HostShard shard : shards) {
+            stop(shard);
+        }
+        stop(slowLane);
+    }
+
+    private void stop(HostShard shard) {
+        LockSupport.unpark(shard.thread);
+        try {
+            shard.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mygdx.game;
+
+import java.util.Random;
+
+/**
+ * Random generator of a match.
+ *
+ * It produces exactly the same numbers as java.util.Random (same 48-bit linear congruential generator),
+ * but its state can be read and restored, so a match saved in a snapshot continues with the same food.
+ * It is not thread-safe, a match is only stepped by one thread.
+ */
+public class MatchRandom extends Random {
+
+    private final static long serialVersionUID = 1L; // Random is serializable; a match is never serialized this way
+
+    private final static long MULTIPLIER = 0x5DEECE66DL;
+    private final static long ADDEND = 0xBL;
+    private final static long MASK = (1L << 48) - 1;
+
+    private long state; // 48-bit state of the generator
+
+    /**
+     * Constructor to initialize the generator.
+     *
+     * @param seed Seed of the match.
+     */
+    public MatchRandom(long seed) {
+        super(seed); // Calls setSeed
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+        super.setSeed(seed); // Resets the cached gaussian
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * @return The 48-bit state of the generator.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * @param state A state returned by {@link #getState()}.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,423 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Authoritative server of a networked match.
+ *
+ * The server owns the {@link GameState}: clients only send the keys pressed by their player and
+ * receive the state of the match after every tick, as a full snapshot when they connect and then as
+ * deltas (see {@link SnapshotCodec}). All the connections are handled by a single
+ * thread with a non-blocking selector loop, which also steps the match at a fixed rate.
+ * The first two clients to connect are players 1 and 2, the match starts when both are connected.
+ * The other clients are spectators: the state of each tick is encoded once and sent to all of them from
+ * the same buffers (see {@link SpectatorFeed}), and a spectator that falls behind skips to the last keyframe.
+ *
+ * A client that sends a malformed message, or that does not read its messages (more than
+ * {@link Connection#MAX_QUEUED} bytes waiting), is disconnected without stopping the match.
+ *
+ * Each input is sent for a given tick and is applied when the match reaches that tick (an input that arrives
+ * late is applied at the next tick). The inputs used for every tick are sent to the clients, so those that
+ * predict the match (see {@link RollbackSession}) can check their predictions.
+ */
+public class MatchServer implements Runnable {
+
+    public final static int PING_INTERVAL = 50; // Ticks between two pings of each connection
+    public final static int PENDING_INPUTS = 64; // Inputs waiting for their tick, for each player
+    public final static int BACKLOG = 1024; // Connections waiting to be accepted (spectators may arrive by the hundreds)
+
+    final ServerSocketChannel serverChannel;
+    final Selector selector;
+    final GameState state;
+    final TickClock clock;
+    final int[] inputs = new int[2]; // Keys of each player used by the next tick
+
+    // Inputs received before their tick, for each player (circular queues)
+    final long[][] pendingTicks = new long[2][PENDING_INPUTS];
+    final int[][] pendingMasks = new int[2][PENDING_INPUTS];
+    final int[] pendingFirst = new int[2];
+    final int[] pendingCount = new int[2];
+    final SnapshotCodec codec = new SnapshotCodec(); // Encoder of the states sent to the clients
+    final SpectatorFeed feed = new SpectatorFeed(); // States sent to the spectators
+
+    final ArrayList<Connection> connections = new ArrayList<>(); // Connected clients
+    final Connection[] players = new Connection[2]; // Connection of each player (null = not connected)
+
+    ByteBuffer stateMessage; // State of the last tick, shared by all the connections (a message of the feed)
+
+    volatile boolean running = true;
+
+    // Statistics
+    long ticks; // Ticks simulated
+    long tickNanosTotal; // Time spent simulating and encoding the ticks
+    long tickNanosMax; // Longest tick
+    long bytesQueued; // Bytes queued to the clients by the ticks
+    long lateInputs; // Inputs received after their tick
+
+    /**
+     * Constructor to open the server.
+     *
+     * @param address        Address to listen on (port 0 = any free port).
+     * @param seed           Seed of the match.
+     * @param ticksPerSecond Number of simulation ticks per second.
+     * @throws IOException If the address cannot be bound.
+     */
+    public MatchServer(InetSocketAddress address, long seed, int ticksPerSecond) throws IOException {
+        state = new GameState(seed);
+        clock = new TickClock(ticksPerSecond, TickClock.MAX_TICKS_PER_FRAME);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return The address the server listens on (with the actual port if port 0 was asked).
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Start the server in its own thread.
+     *
+     * @return The thread of the server.
+     */
+    public Thread start() {
+        Thread thread = new Thread(this, "match-server");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Ask the server to stop; the connections are closed by the server thread.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Selector loop: handles the network events and steps the match when a tick is due.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                // Sleep until the next tick or a network event
+                long waitMillis = (clock.tickNanos - clock.accumulator) / 1_000_000;
+                if (waitMillis > 0) {
+                    selector.select(waitMillis);
+                } else {
+                    selector.selectNow();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        handle((Connection) key.attachment(), key);
+                    }
+                }
+
+                int count = clock.advance(System.nanoTime());
+                for (int i = 0; i < count; i++) {
+                    tick();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Match server stopped: " + e);
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    /**
+     * Accept the new clients, giving each one the first free player slot. All the clients waiting are accepted,
+     * so a crowd of spectators connecting at once does not overflow the backlog of the socket.
+     *
+     * @throws IOException If the selector fails.
+     */
+    private void accept() throws IOException {
+        for (SocketChannel channel = serverChannel.accept(); channel != null; channel = serverChannel.accept()) {
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.add(connection);
+
+            for (int i = 0; i < players.length; i++) {
+                if (players[i] == null) {
+                    players[i] = connection;
+                    connection.player = i + 1;
+                    break;
+                }
+            }
+            connection.beginMessage(Connection.WELCOME, 5).put((byte) connection.player)
+                    .putShort((short) state.columns).putShort((short) state.rows);
+            connection.endMessage();
+            connection.ping();
+
+            // The new client starts from the current state, the next deltas are encoded from it
+            codec.encodeFull(state, connection.beginMessage(Connection.STATE, SnapshotCodec.maxBytes(state)));
+            connection.endMessage();
+            if (connection.player == 0) {
+                feed.add(connection);
+            }
+
+            if (connection.player != 0 && ready() && state.tick == 0) { // Both players are here: start the match
+                clock.reset();
+            }
+        }
+    }
+
+    /**
+     * Handle the network events of a connection. Any error of the connection, including a malformed message,
+     * only disconnects this client.
+     *
+     * @param connection The connection.
+     * @param key        Its selection key.
+     */
+    private void handle(Connection connection, SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                if (!connection.read()) {
+                    disconnect(connection);
+                    return;
+                }
+                for (int type = connection.nextMessage(); type != -1; type = connection.nextMessage()) {
+                    receive(connection, type, connection.in);
+                }
+                connection.endRead();
+                if (connection.isBehind()) { // Sends pings without reading the answers
+                    disconnect(connection);
+                    return;
+                }
+            }
+            if (key.isValid() && key.isWritable()) {
+                if (connection.cursor != null) { // The messages of the feed and those of the connection are sent together
+                    feed.write(connection.cursor);
+                } else {
+                    connection.flush();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            disconnect(connection);
+        }
+    }
+
+    /**
+     * Handle a message received from a client.
+     *
+     * @param connection The connection of the client.
+     * @param type       Type of the message.
+     * @param body       The body of the message.
+     */
+    private void receive(Connection connection, int type, ByteBuffer body) {
+        switch (type) {
+            case Connection.INPUT:
+                long tick = body.getLong(); // Tick the keys are for
+                int mask = body.get();
+                if (connection.player != 0) {
+                    queueInput(connection.player - 1, tick, mask);
+                }
+                break;
+            case Connection.PING:
+                long sentAt = body.getLong();
+                connection.beginMessage(Connection.PONG, 8).putLong(sentAt);
+                connection.endMessage();
+                break;
+            case Connection.PONG:
+                connection.pong(body.getLong());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Close a connection; a player that leaves keeps going straight.
+     *
+     * @param connection The connection.
+     */
+    private void disconnect(Connection connection) {
+        connection.close();
+        connections.remove(connection);
+        feed.remove(connection);
+        if (connection.player != 0) {
+            players[connection.player - 1] = null;
+            inputs[connection.player - 1] = 0;
+            pendingCount[connection.player - 1] = 0;
+        }
+    }
+
+    /**
+     * Keep an input until its tick.
+     *
+     * @param player Index of the player (0 or 1).
+     * @param tick   Tick the keys are for.
+     * @param mask   Mask of the keys.
+     */
+    private void queueInput(int player, long tick, int mask) {
+        if (tick < state.tick) {
+            lateInputs++;
+        }
+        if (pendingCount[player] == PENDING_INPUTS) { // Too many inputs ahead: apply the oldest one now
+            inputs[player] = pendingMasks[player][pendingFirst[player]];
+            pendingFirst[player] = (pendingFirst[player] + 1) % PENDING_INPUTS;
+            pendingCount[player]--;
+        }
+        int last = (pendingFirst[player] + pendingCount[player]) % PENDING_INPUTS;
+        pendingTicks[player][last] = tick;
+        pendingMasks[player][last] = mask;
+        pendingCount[player]++;
+    }
+
+    /**
+     * Take the inputs whose tick has come: the last one of each player is used by the next tick.
+     */
+    private void takeInputs() {
+        for (int player = 0; player < 2; player++) {
+            while (pendingCount[player] > 0 && pendingTicks[player][pendingFirst[player]] <= state.tick) {
+                inputs[player] = pendingMasks[player][pendingFirst[player]];
+                pendingFirst[player] = (pendingFirst[player] + 1) % PENDING_INPUTS;
+                pendingCount[player]--;
+            }
+        }
+    }
+
+    /**
+     * @return true if both players are connected or the match has started.
+     */
+    private boolean ready() {
+        return state.tick > 0 || (players[0] != null && players[1] != null);
+    }
+
+    /**
+     * Step the match with the last inputs received and send the new state to every client.
+     */
+    private void tick() {
+        if (!ready() || state.isOver()) {
+            return;
+        }
+        long start = System.nanoTime();
+        takeInputs();
+        state.step(inputs);
+        encodeState();
+        broadcast();
+        for (int i = 0; i < feed.lost.size(); i++) {
+            disconnect(feed.lost.get(i));
+        }
+        feed.lost.clear();
+
+        if (state.tick % PING_INTERVAL == 0) {
+            for (int i = 0; i < connections.size(); i++) {
+                connections.get(i).ping();
+            }
+        }
+        for (int i = connections.size() - 1; i >= 0; i--) { // Drop the clients that fell too far behind
+            if (connections.get(i).isBehind()) {
+                disconnect(connections.get(i));
+            }
+        }
+        long duration = System.nanoTime() - start;
+        tickNanosTotal += duration;
+        tickNanosMax = Math.max(tickNanosMax, duration);
+        ticks++;
+    }
+
+    /**
+     * Queue the inputs and the state of the last tick to the players, and send the messages of the feed to the spectators.
+     */
+    private void broadcast() {
+        for (Connection player : players) {
+            if (player != null) {
+                player.enqueue(stateMessage);
+                bytesQueued += stateMessage.remaining();
+            }
+        }
+        bytesQueued += (long) stateMessage.remaining() * feed.cursors.size();
+        feed.send();
+    }
+
+    /**
+     * Encode the inputs used by the last tick and the changes of the match into the shared state message,
+     * and every KEYFRAME_INTERVAL ticks the whole match into a keyframe of the feed.
+     */
+    private void encodeState() {
+        int maxBytes = 2 * Connection.HEADER_SIZE + 10 + SnapshotCodec.maxBytes(state);
+        ByteBuffer out = feed.begin(maxBytes);
+        out.putInt(10);
+        out.put(Connection.INPUTS);
+        out.putLong(state.tick - 1);
+        out.put((byte) inputs[0]);
+        out.put((byte) inputs[1]);
+
+        int start = out.position();
+        out.putInt(0); // Length, known at the end
+        out.put(Connection.STATE);
+        codec.encodeDelta(state, out);
+        out.putInt(start, out.position() - start - Connection.HEADER_SIZE);
+        stateMessage = feed.publish(false);
+
+        if (state.tick % SpectatorFeed.KEYFRAME_INTERVAL == 0) { // The next deltas are encoded from the keyframe
+            out = feed.begin(Connection.HEADER_SIZE + SnapshotCodec.maxBytes(state));
+            out.putInt(0); // Length, known at the end
+            out.put(Connection.STATE);
+            codec.encodeFull(state, out);
+            out.putInt(0, out.position() - Connection.HEADER_SIZE);
+            feed.publish(true);
+        }
+    }
+
+    /**
+     * @return true if the match has ended.
+     */
+    public boolean isOver() {
+        return state.isOver();
+    }
+
+    /**
+     * Build a report of the statistics of the server (to be called once the server has stopped).
+     *
+     * @return One line for the ticks and one line per connection.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Server: %d ticks, %.1f us/tick on average, %.1f us max, %.0f bytes/tick, %d late inputs",
+                ticks, ticks == 0 ? 0 : tickNanosTotal / 1000.0 / ticks, tickNanosMax / 1000.0,
+                ticks == 0 ? 0 : (double) bytesQueued / ticks, lateInputs));
+        report.append(System.lineSeparator()).append(feed.report());
+        for (Connection connection : connections) {
+            if (connection.player == 0) {
+                continue; // Counted by the feed
+            }
+            report.append(String.format("%n  Player %d: RTT %.3f ms (average %.3f ms), %d bytes sent, %d bytes received",
+                    connection.player, connection.rttNanos / 1e6, connection.averageRttNanos() / 1e6,
+                    connection.bytesSent, connection.bytesReceived));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,313 @@
+package com.mygdx.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures where the time of the game goes: the simulation time of each tick, the time of each frame,
+ * the idle time between two frames, the draw calls and texture bindings of each frame, and the collections
+ * of the garbage collector.
+ *
+ * The values are counted in {@link Histogram}s, only while the metrics are enabled (with -Dsnake.metrics=true,
+ * or with F3 in the game, which also shows them over the screen). When they are disabled, each call costs a
+ * single test of a field, so the calls stay in the game loop.
+ *
+ * Independently, every tick and every frame is emitted as a JFR event when a flight recording asks for them
+ * (e.g. -XX:StartFlightRecording): they show next to the events of the JVM (GC, JIT, locks) in JDK Mission Control.
+ * The collections themselves are already recorded by the JVM as jdk.GarbageCollection events.
+ *
+ * The ticks are measured by the simulation thread and the frames by the render thread (see {@link SimulationThread}).
+ * Each histogram is only written by one thread: F3 (on the render thread) turns the metrics on and off through
+ * a volatile field, and the histogram of the ticks is emptied by the simulation thread itself, at its next tick.
+ * The overlay reads the histogram of the ticks without a lock, so a line may be off by the tick being recorded.
+ */
+public class Metrics {
+
+    public final static long TEXT_PERIOD_NANOS = 500_000_000; // Time between two updates of the text of the overlay
+
+    /**
+     * One tick of the simulation of a match.
+     */
+    @Name("com.mygdx.game.Tick")
+    @Label("Tick")
+    @Category("Snake Game")
+    static class TickEvent extends Event {
+        @Label("Tick")
+        long tick;
+    }
+
+    /**
+     * One frame of the game, from the start of render() to its end.
+     */
+    @Name("com.mygdx.game.Frame")
+    @Label("Frame")
+    @Category("Snake Game")
+    static class FrameEvent extends Event {
+        @Label("Screen")
+        int screen;
+        @Label("Ticks")
+        int ticks;
+        @Label("Draw Calls")
+        int drawCalls;
+        @Label("Idle Time Before")
+        @Timespan(Timespan.NANOSECONDS)
+        long idle;
+    }
+
+    final static EventType TICK_EVENTS = EventType.getEventType(TickEvent.class);
+    final static EventType FRAME_EVENTS = EventType.getEventType(FrameEvent.class);
+
+    volatile boolean enabled; // The histograms are filled (set by the render thread, read by both threads)
+    volatile boolean resetTicks; // The histogram of the ticks must be emptied before the next tick is recorded
+
+    final Histogram tickNanos = new Histogram(); // Simulation time of each tick
+    final Histogram frameNanos = new Histogram(); // Time of each frame
+    final Histogram idleNanos = new Histogram(); // Time between the end of a frame and the start of the next one
+    final Histogram drawCalls = new Histogram(); // Draw calls of each frame
+    final Histogram textureBindings = new Histogram(); // Texture bindings of each frame
+    final Histogram gcNanos = new Histogram(); // Time of each collection
+
+    long tickStart, frameStart, lastFrameEnd; // Time of the start of the tick (0 = not measured), of the frame, end of the last frame
+    volatile long ticks; // Ticks run since the start (written by the thread of the ticks, read by the one of the frames)
+    long frameStartTicks; // Ticks run when the frame started
+    TickEvent tickEvent; // Event of the tick, while a recording takes them
+    FrameEvent frameEvent; // Event of the frame, while a recording takes them
+
+    final GarbageCollectorMXBean[] collectors; // Collectors of the JVM (usually one for the young and one for the old generation)
+    long gcCount, gcMillis; // Collections and their time, when last checked
+
+    final StringBuilder text = new StringBuilder(); // Text of the overlay
+    long textTime; // Time the text was built
+
+    /**
+     * Constructor to initialize the metrics.
+     *
+     * @param enabled true to start filling the histograms right away.
+     */
+    public Metrics(boolean enabled) {
+        collectors = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+        setEnabled(enabled);
+    }
+
+    /**
+     * @return Metrics enabled with -Dsnake.metrics=true, or disabled until they are turned on.
+     */
+    public static Metrics fromSystemProperty() {
+        return new Metrics(Boolean.getBoolean("snake.metrics"));
+    }
+
+    /**
+     * Start or stop filling the histograms. They start empty every time the metrics are enabled
+     * (the histogram of the ticks is emptied by the thread of the ticks, before it records the next one).
+     * Called by the render thread.
+     *
+     * @param enabled true to fill the histograms.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            resetTicks = true; // Seen by the thread of the ticks once it sees enabled
+            frameNanos.reset();
+            idleNanos.reset();
+            drawCalls.reset();
+            textureBindings.reset();
+            gcNanos.reset();
+            gcCount = collections();
+            gcMillis = collectionMillis();
+            lastFrameEnd = 0;
+            textTime = 0;
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Register the start of a tick of the simulation. Called by the thread of the ticks.
+     */
+    public void startTick() {
+        if (enabled) {
+            if (resetTicks) {
+                resetTicks = false;
+                tickNanos.reset();
+            }
+            tickStart = System.nanoTime();
+        }
+        if (TICK_EVENTS.isEnabled()) {
+            tickEvent = new TickEvent();
+            tickEvent.begin();
+        }
+    }
+
+    /**
+     * Register the end of a tick of the simulation. Called by the thread of the ticks.
+     *
+     * @param tick Number of the tick.
+     */
+    public void endTick(long tick) {
+        if (tickStart != 0) { // The metrics were enabled at the start of the tick
+            tickNanos.record(System.nanoTime() - tickStart);
+            tickStart = 0;
+        }
+        ticks++;
+        if (tickEvent != null) {
+            tickEvent.tick = tick;
+            tickEvent.commit();
+            tickEvent = null;
+        }
+    }
+
+    /**
+     * Register the start of a frame.
+     */
+    public void startFrame() {
+        frameStartTicks = ticks;
+        if (!enabled && !FRAME_EVENTS.isEnabled()) {
+            return;
+        }
+        frameStart = System.nanoTime();
+        long idle = lastFrameEnd == 0 ? 0 : frameStart - lastFrameEnd;
+        if (enabled && lastFrameEnd != 0) {
+            idleNanos.record(idle);
+        }
+        if (FRAME_EVENTS.isEnabled()) {
+            frameEvent = new FrameEvent();
+            frameEvent.idle = idle;
+            frameEvent.begin();
+        }
+    }
+
+    /**
+     * Register the end of a frame.
+     *
+     * @param screen          Number of the screen shown in the frame.
+     * @param drawCalls       Draw calls of the frame.
+     * @param textureBindings Texture bindings of the frame (0 if they were not counted).
+     */
+    public void endFrame(int screen, int drawCalls, int textureBindings) {
+        if (frameEvent != null) {
+            frameEvent.screen = screen;
+            frameEvent.ticks = (int) (ticks - frameStartTicks);
+            frameEvent.drawCalls = drawCalls;
+            frameEvent.commit();
+            frameEvent = null;
+        }
+        if (!enabled) {
+            lastFrameEnd = 0;
+            return;
+        }
+        lastFrameEnd = System.nanoTime();
+        frameNanos.record(lastFrameEnd - frameStart);
+        this.drawCalls.record(drawCalls);
+        this.textureBindings.record(textureBindings);
+
+        // Collections since the last frame (the JVM only gives their total time, in milliseconds)
+        long count = collections();
+        if (count != gcCount) {
+            long millis = collectionMillis();
+            long each = (millis - gcMillis) * 1_000_000 / (count - gcCount);
+            for (long i = gcCount; i < count; i++) {
+                gcNanos.record(each);
+            }
+            gcCount = count;
+            gcMillis = millis;
+        }
+    }
+
+    /**
+     * @return Collections done by the JVM since it started.
+     */
+    private long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return Time of the collections done by the JVM since it started, in milliseconds.
+     */
+    private long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Text of the overlay: one line per histogram. It is rebuilt every TEXT_PERIOD_NANOS into the same
+     * StringBuilder, so showing it does not allocate once the builder is big enough.
+     *
+     * @param now Current time (System.nanoTime()).
+     * @return The text.
+     */
+    public CharSequence text(long now) {
+        if (textTime == 0 || now - textTime >= TEXT_PERIOD_NANOS) {
+            textTime = now;
+            text.setLength(0);
+            appendLine("tick ", tickNanos, true);
+            appendLine("frame", frameNanos, true);
+            appendLine("idle ", idleNanos, true);
+            appendLine("draws", drawCalls, false);
+            appendLine("binds", textureBindings, false);
+            appendLine("gc   ", gcNanos, true);
+        }
+        return text;
+    }
+
+    /**
+     * @return The histograms, one per line.
+     */
+    public String report() {
+        text.setLength(0);
+        appendLine("tick ", tickNanos, true);
+        appendLine("frame", frameNanos, true);
+        appendLine("idle ", idleNanos, true);
+        appendLine("draws", drawCalls, false);
+        appendLine("binds", textureBindings, false);
+        appendLine("gc   ", gcNanos, true);
+        textTime = 0;
+        return text.toString();
+    }
+
+    /**
+     * Add a line to the text: the number of values, the median, the 99th percentile and the maximum.
+     *
+     * @param name      Name of the histogram.
+     * @param histogram The histogram.
+     * @param nanos     true if the values are durations in nanoseconds (shown in microseconds).
+     */
+    private void appendLine(String name, Histogram histogram, boolean nanos) {
+        text.append(name).append("  n ").append(histogram.getCount());
+        appendValue("  p50 ", histogram.percentile(0.5), nanos);
+        appendValue("  p99 ", histogram.percentile(0.99), nanos);
+        appendValue("  max ", histogram.getMax(), nanos);
+        text.append('\n');
+    }
+
+    /**
+     * Add a value to the text, without allocating (a duration is written in microseconds with one decimal).
+     *
+     * @param label Text before the value.
+     * @param value The value.
+     * @param nanos true if the value is a duration in nanoseconds.
+     */
+    private void appendValue(String label, long value, boolean nanos) {
+        text.append(label);
+        if (nanos) {
+            text.append(value / 1000).append('.').append(value / 100 % 10).append(" us");
+        } else {
+            text.append(value);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.mygdx.game;
+
+/**
+ * Bot that finds a path to the piece of food worth the most (its growth over its distance) and follows it.
+ *
+ * The path is searched with a breadth-first search from the head that goes around the walls and the bodies
+ * of the other snakes. The search has a budget of cells expanded per tick and is resumed at the next tick
+ * where it stopped, as long as the head has not moved (a snake moves once every few ticks, so a search
+ * usually has several ticks to finish). Once found, the path is reused at every move: the bot only checks
+ * the next few cells of the path and its target, and searches again only when they changed. When the snake
+ * has to move before any path is known, it takes the safe move with the most room around it.
+ *
+ * The budget counts cells rather than time, so matches between bots stay reproducible.
+ * The memory of a bot does not depend on the size of the board: a search visits at most maxCells cells.
+ */
+public class PathController implements Controller {
+
+    public final static int DEFAULT_BUDGET = 128; // Cells expanded per tick
+    public final static int DEFAULT_MAX_CELLS = 4096; // Cells visited by a search at most
+    public final static int LOOKAHEAD = 3; // Cells of the path checked at each move
+    public final static int FAILED_SEARCH_MOVES = 8; // Moves without searching after a search found no food in time
+    public final static int DISTANCE_BIAS = 4; // Added to the distances when comparing the foods (a close apple beats a far golden apple)
+
+    // Directions of the moves: up, down, left, right
+    final static int[] DX = {0, 0, -1, 1};
+    final static int[] DY = {1, -1, 0, 0};
+
+    final int budget; // Cells expanded per tick
+    final int maxCells; // Cells visited by a search at most
+
+    int columns; // Columns of the board (0 = not set up yet)
+
+    // Cells visited by the search: open addressing hash table, a slot is used when its stamp is the current generation
+    int[] keys; // Cell of each slot (x + y * columns)
+    int[] stamps; // Generation of each slot
+    byte[] parents; // Direction of the move that reached the cell
+    int mask; // Length of the table - 1
+    int shift; // Shift of the hash to the bits of a slot
+    int generation; // Changes at every new search, so the table never needs to be cleared
+
+    // Breadth-first search in progress
+    int[] queue; // Cells to expand
+    int[] queueDistances; // Distance of each cell of the queue from the origin
+    int queueFirst, queueEnd; // Next cell to expand, end of the queue
+    int origin = -1; // Head of the snake when the search started (-1 = no search)
+    boolean searching; // The search can still find a better food
+    int bestCell = -1, bestValue, bestDistance; // Best food found by the search (-1 = none)
+    int idleMoves; // Moves left before searching again, after a search found no food in time
+
+    // Path being followed
+    int[] path; // Cells of the path, from the first move to the food
+    int pathLength, pathIndex; // Number of cells, next cell to move to
+    int expectedHead = -1; // Cell the head should be on when following the path
+    int targetIndex, targetCell, targetType; // Food at the end of the path
+
+    // Statistics
+    long searches; // Searches started
+    long expansions; // Cells expanded
+    long fallbacks; // Moves taken without a path
+
+    /**
+     * Constructor of a bot with the default budget.
+     */
+    public PathController() {
+        this(DEFAULT_BUDGET, DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * Constructor of a bot.
+     *
+     * @param budget   Cells expanded per tick.
+     * @param maxCells Cells visited by a search at most.
+     */
+    public PathController(int budget, int maxCells) {
+        this.budget = budget;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Allocate the search structures for the board of the match.
+     *
+     * @param state The match.
+     */
+    private void setUp(GameState state) {
+        columns = state.columns;
+        int cells = (int) Math.min(maxCells, (long) state.columns * state.rows);
+        int capacity = Integer.highestOneBit(Math.max(2, cells * 2 - 1)) * 2;
+        keys = new int[capacity];
+        stamps = new int[capacity];
+        parents = new byte[capacity];
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        queue = new int[cells];
+        queueDistances = new int[cells];
+        path = new int[cells];
+    }
+
+    @Override
+    public int input(GameState state, int player) {
+        if (columns == 0) {
+            setUp(state);
+        }
+        Snake snake = state.getSnake(player);
+        int head = snake.headX + snake.headY * columns;
+        boolean moves = Controller.movesNextTick(snake);
+
+        if (pathIndex < pathLength && (head != expectedHead || !pathValid(state, snake))) {
+            pathLength = 0; // The path is no longer valid: search again from the head
+        }
+        if (pathIndex >= pathLength) {
+            if (origin != head && idleMoves == 0) {
+                startSearch(state.board, snake, head);
+            }
+            if (searching) {
+                search(state, snake);
+            }
+            if (bestCell >= 0 && (!searching || moves)) {
+                buildPath(state);
+            }
+        }
+        if (!moves) {
+            return 0;
+        }
+
+        if (pathIndex < pathLength) {
+            int next = path[pathIndex++];
+            expectedHead = next;
+            return Controller.toward(next % columns - snake.headX, next / columns - snake.headY);
+        }
+        fallbacks++;
+        if (idleMoves > 0) {
+            idleMoves--;
+        } else { // The search found no food in time: move without a path for a while
+            idleMoves = FAILED_SEARCH_MOVES;
+            searching = false;
+        }
+        return safestMove(state, snake);
+    }
+
+    /**
+     * Check the part of the path that the next moves use, and its target: only the cells that can have changed
+     * since the path was found are looked at.
+     *
+     * @param state The match.
+     * @param snake The snake of the bot.
+     * @return true if the path can still be followed.
+     */
+    private boolean pathValid(GameState state, Snake snake) {
+        Food target = state.foods[targetIndex];
+        if (target.type != targetType || target.x + target.y * columns != targetCell) { // Eaten by someone else
+            return false;
+        }
+        int end = Math.min(pathLength, pathIndex + LOOKAHEAD);
+        for (int i = pathIndex; i < end; i++) {
+            if (!Controller.isSafe(state.board, snake, path[i] % columns, path[i] / columns)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start a new search from the head of the snake.
+     *
+     * @param board The board of the match.
+     * @param snake The snake of the bot.
+     * @param head  Cell of the head.
+     */
+    private void startSearch(Board board, Snake snake, int head) {
+        generation++;
+        origin = head;
+        queueFirst = 0;
+        queueEnd = 0;
+        bestCell = -1;
+        searching = true;
+        searches++;
+        // The snake cannot turn back: the cell behind the head is visited first so the search never goes there
+        if (board.inside(snake.headX - snake.dx, snake.headY - snake.dy)) {
+            insert(head - snake.dx - snake.dy * columns, -1);
+        }
+        insert(head, -1);
+        queueDistances[queueEnd] = 0;
+        queue[queueEnd++] = head;
+    }
+
+    /**
+     * Expand the cells of the search, up to the budget of the tick.
+     *
+     * @param state The match.
+     * @param snake The snake of the bot.
+     */
+    private void search(GameState state, Snake snake) {
+        Board board = state.board;
+        for (int count = 0; count < budget; count++) {
+            if (queueFirst == queueEnd) {
+                searching = false;
+                return;
+            }
+            int distance = queueDistances[queueFirst] + 1;
+            int cell = queue[queueFirst++];
+            // A farther food cannot be worth more than the best one found
+            if (bestCell >= 0 && state.catalog.maxGrowth * (bestDistance + DISTANCE_BIAS) <= bestValue * (distance + DISTANCE_BIAS)) {
+                searching = false;
+                return;
+            }
+            expansions++;
+            int x = cell % columns, y = cell / columns;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (!Controller.isSafe(board, snake, nx, ny)) {
+                    continue;
+                }
+                int next = nx + ny * columns;
+                if (find(next) >= 0 || queueEnd == queue.length) {
+                    continue;
+                }
+                insert(next, d);
+                queueDistances[queueEnd] = distance;
+                queue[queueEnd++] = next;
+
+                int food = board.foodAt(nx, ny);
+                if (food >= 0) {
+                    int value = state.catalog.growth(state.foods[food].type); // Growth given by the food
+                    if (bestCell < 0 || value * (bestDistance + DISTANCE_BIAS) > bestValue * (distance + DISTANCE_BIAS)) {
+                        bestCell = next;
+                        bestValue = value;
+                        bestDistance = distance;
+                        targetIndex = food;
+                        targetType = state.foods[food].type;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Follow the directions of the search back from the best food to the head.
+     *
+     * @param state The match.
+     */
+    private void buildPath(GameState state) {
+        pathLength = bestDistance;
+        pathIndex = 0;
+        targetCell = bestCell;
+        int cell = bestCell;
+        for (int i = pathLength - 1; i >= 0; i--) {
+            path[i] = cell;
+            int d = parents[find(cell)];
+            cell -= DX[d] + DY[d] * columns;
+        }
+        expectedHead = origin;
+        origin = -1; // The next search starts from a new head
+        bestCell = -1;
+        searching = false;
+    }
+
+    /**
+     * Choose a move without a path: the safe direction with the most safe cells around it (the snake cannot
+     * turn back), then the one that gets closer to a piece of food.
+     *
+     * @param state The match.
+     * @param snake The snake of the bot.
+     * @return Mask of the key to press (0 = keep going, when no move is safe).
+     */
+    private int safestMove(GameState state, Snake snake) {
+        Board board = state.board;
+        int choice = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int turn = 0; turn < 3; turn++) {
+            int dx = turn == 0 ? snake.dx : turn == 1 ? -snake.dy : snake.dy;
+            int dy = turn == 0 ? snake.dy : turn == 1 ? snake.dx : -snake.dx;
+            int x = snake.headX + dx, y = snake.headY + dy;
+            if (!Controller.isSafe(board, snake, x, y)) {
+                continue;
+            }
+            int room = 0;
+            for (int d = 0; d < 4; d++) {
+                if (Controller.isSafe(board, snake, x + DX[d], y + DY[d])) {
+                    room++;
+                }
+            }
+            int distance = Integer.MAX_VALUE / 8;
+            for (Food food : state.foods) {
+                if (food.type != 0) {
+                    distance = Math.min(distance, Math.abs(food.x - x) + Math.abs(food.y - y));
+                }
+            }
+            int score = room * 4 * (board.columns + board.rows) - distance;
+            if (score > bestScore) {
+                bestScore = score;
+                choice = Controller.toward(dx, dy);
+            }
+        }
+        return choice;
+    }
+
+    /**
+     * @param cell A cell of the board.
+     * @return Slot of the cell in the table of the visited cells, or -1 if it was not visited by the current search.
+     */
+    private int find(int cell) {
+        for (int slot = hash(cell); ; slot = (slot + 1) & mask) {
+            if (stamps[slot] != generation) {
+                return -1;
+            }
+            if (keys[slot] == cell) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Mark a cell as visited by the current search.
+     *
+     * @param cell     A cell of the board.
+     * @param parent   Direction of the move that reached the cell.
+     */
+    private void insert(int cell, int parent) {
+        int slot = hash(cell);
+        while (stamps[slot] == generation) {
+            slot = (slot + 1) & mask;
+        }
+        stamps[slot] = generation;
+        keys[slot] = cell;
+        parents[slot] = (byte) parent;
+    }
+
+    private int hash(int cell) {
+        return (cell * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * @return Searches started, cells expanded and moves taken without a path.
+     */
+    public String report() {
+        return String.format("%d searches, %.1f cells per search, %d moves without a path",
+                searches, searches == 0 ? 0 : (double) expansions / searches, fallbacks);
+    }
+}
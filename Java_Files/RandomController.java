@@ -0,0 +1,42 @@
+package com.mygdx.game;
+
+/**
+ * Bot that wanders: it turns at random from time to time and avoids crashing in the next move when it can.
+ * Its random generator is its own, so the matches it plays are reproducible.
+ */
+public class RandomController implements Controller {
+
+    public final static int TURN_ODDS = 8; // The bot turns on average once every TURN_ODDS moves
+
+    final MatchRandom random;
+
+    /**
+     * @param seed Seed of the random generator of the bot.
+     */
+    public RandomController(long seed) {
+        random = new MatchRandom(seed);
+    }
+
+    @Override
+    public int input(GameState state, int player) {
+        Snake snake = state.getSnake(player);
+        if (!Controller.movesNextTick(snake)) {
+            return 0;
+        }
+        int x = snake.headX, y = snake.headY;
+        boolean ahead = Controller.isSafe(state.board, snake, x + snake.dx, y + snake.dy);
+        if (ahead && random.nextInt(TURN_ODDS) != 0) {
+            return 0;
+        }
+
+        // Turn left or right, whichever is safe (at random if both are)
+        int side = random.nextBoolean() ? 1 : -1;
+        for (int i = 0; i < 2; i++, side = -side) {
+            int dx = -snake.dy * side, dy = snake.dx * side;
+            if (Controller.isSafe(state.board, snake, x + dx, y + dy)) {
+                return Controller.toward(dx, dy);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,236 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless check of the render loop: runs the real {@link SnakeGame#render()} on the libGDX headless backend,
+ * with a {@link CountingGL} instead of a GPU, and presses the keys of a player through every screen: the start
+ * screen, the choice of both skins, a match (where both snakes go around a square, see
+ * {@link AllocationProbe#aroundStart}), the end screen, the replay of the match and back to the start screen.
+ *
+ * Every screen is measured by an {@link AllocationProbe} for a number of windows, with the heap memory allocated
+ * by the render thread and the OpenGL objects alive after each frame. The whole round is played several times,
+ * with other skins each time, and the objects alive on the start screen must be the same after each round
+ * (a match must give back the textures it took); after dispose() none must be left.
+ * Exits with status 1 if any of these fails.
+ *
+ * Must be run from the folder of the images and sounds, with the gdx, gdx-backend-headless and gdx-platform
+ * (natives-desktop) libraries on the classpath.
+ */
+public class RenderProbe extends SnakeGame {
+
+    public final static int FRAMES_PER_SECOND = 1000; // Frames asked to the headless backend
+    public final static int MAX_FRAMES = 1_000_000; // Frames after which the check gives up (a screen never ended)
+
+    /**
+     * Input of the headless backend that presses the keys of the script: each key is just pressed for one frame.
+     */
+    static class ScriptedInput extends MockInput {
+        int pressed = -1; // Key just pressed in this frame (-1 = none)
+
+        @Override
+        public boolean isKeyJustPressed(int key) {
+            return key == pressed;
+        }
+
+        @Override
+        public long getCurrentEventTime() {
+            return System.nanoTime();
+        }
+    }
+
+    final int windows; // Windows measured on each screen
+    final int rounds; // Times the screens are gone through
+    final CountingGL gl = new CountingGL();
+    final ScriptedInput input = new ScriptedInput();
+    final AllocationProbe probe = new AllocationProbe(AllocationProbe.WARMUP_FRAMES, AllocationProbe.WINDOW_FRAMES);
+    final CountDownLatch finished = new CountDownLatch(1);
+
+    int round; // Rounds finished
+    long frame; // Frames rendered
+    boolean replayed; // The replay of the match of this round was watched
+    boolean done; // Every round was played, the game is closing
+    final int[] steered = new int[GameState.PLAYERS]; // Last direction given to each snake (0 = none)
+    int startHandles = -1; // OpenGL objects alive on the start screen of the first round
+    final ArrayList<Path> replays = new ArrayList<>(); // Replays written by the check, deleted at the end
+    int failures; // Failures besides those of the probe
+
+    /**
+     * Constructor of the check.
+     *
+     * @param windows Windows measured on each screen.
+     * @param rounds  Times the screens are gone through.
+     */
+    public RenderProbe(int windows, int rounds) {
+        this.windows = windows;
+        this.rounds = rounds;
+    }
+
+    @Override
+    public void create() {
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        Gdx.input = input;
+        super.create();
+    }
+
+    @Override
+    public void render() {
+        int screen = currentScreen();
+        boolean measured = loaded && probe.screen == screen && probe.getWindows() >= windows;
+        input.pressed = -1;
+        if (++frame == MAX_FRAMES) {
+            System.err.println("Screen " + screen + " did not end after " + MAX_FRAMES + " frames");
+            failures++;
+            Gdx.app.exit();
+        }
+        switch (screen) {
+            case 0: // Start screen, measured once the assets are loaded
+                if (measured && !done) {
+                    checkRound();
+                    if (round == rounds) {
+                        done = true;
+                        Gdx.app.exit(); // dispose() is called after the next frame
+                    } else {
+                        input.pressed = Input.Keys.SPACE;
+                    }
+                }
+                break;
+            case 1: // Choice of the skins, other ones each round
+            case 2:
+                if (measured) {
+                    input.pressed = Input.Keys.NUM_1 + (2 * round + screen - 1) % 5;
+                }
+                break;
+            case 3: // Match: the snakes go around their squares, then straight on until one of them crashes
+                if (!measured) {
+                    steer();
+                }
+                break;
+            case 4: // End screen: the replay, then back to the start screen
+                if (recorder != null && !replays.contains(recorder.getPath())) {
+                    replays.add(recorder.getPath());
+                    Arrays.fill(steered, 0);
+                }
+                if (measured && replayed) {
+                    input.pressed = Input.Keys.SPACE;
+                    replayed = false;
+                    round++;
+                } else if (measured) {
+                    input.pressed = Input.Keys.R; // Until the file of the replay is finished
+                }
+                break;
+            case 5: // Replay
+                replayed = true;
+                if (measured) {
+                    input.pressed = Input.Keys.SPACE;
+                }
+                break;
+        }
+
+        super.render();
+        if (loaded) { // The frames loading the assets allocate
+            probe.frame(currentScreen(), gl.getHandles());
+        }
+    }
+
+    /**
+     * Give each snake the key that keeps it around its square, when it changes.
+     */
+    private void steer() {
+        if (simulation == null) {
+            return;
+        }
+        GameState shown = simulation.latest().state;
+        for (int i = 0; i < steered.length; i++) {
+            int direction = AllocationProbe.aroundStart(shown, i);
+            if (direction != steered[i]) {
+                steered[i] = direction;
+                keyDown(key(i, direction));
+            }
+        }
+    }
+
+    /**
+     * @param player    Index of the player.
+     * @param direction Direction (see Snake.UP).
+     * @return Key bound to the direction for the player (see SnakeGame#controllers).
+     */
+    static int key(int player, int direction) {
+        if (direction == Snake.UP) return player == 0 ? Input.Keys.W : Input.Keys.UP;
+        if (direction == Snake.DOWN) return player == 0 ? Input.Keys.S : Input.Keys.DOWN;
+        if (direction == Snake.LEFT) return player == 0 ? Input.Keys.A : Input.Keys.LEFT;
+        return player == 0 ? Input.Keys.D : Input.Keys.RIGHT;
+    }
+
+    /**
+     * Compare the OpenGL objects alive on the start screen with those of the first round.
+     */
+    private void checkRound() {
+        if (startHandles < 0) {
+            startHandles = gl.getHandles();
+        } else if (gl.getHandles() != startHandles) {
+            System.err.println("Round " + round + " ends with " + (gl.getHandles() - startHandles)
+                    + " more OpenGL objects on the start screen");
+            failures++;
+            startHandles = gl.getHandles();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            super.dispose();
+            if (gl.getHandles() != 0) {
+                System.err.println(gl.getHandles() + " OpenGL objects left after dispose()");
+                failures++;
+            }
+            for (Path path : replays) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Cannot delete " + path + ": " + e);
+                }
+            }
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Run the check.
+     *
+     * @param args Optional number of windows measured on each screen (default 2) and of rounds (default 2).
+     * @throws InterruptedException If interrupted while waiting for the game.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int windows = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> { // The game failed on the thread of the backend
+            e.printStackTrace();
+            System.exit(1);
+        });
+        RenderProbe game = new RenderProbe(windows, rounds);
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = FRAMES_PER_SECOND;
+        new HeadlessApplication(game, config);
+        game.finished.await();
+
+        int failures = game.probe.getFailures() + game.failures;
+        System.out.println(game.frame + " frames, " + game.round + " rounds, " + game.gl.getCreated()
+                + " OpenGL objects created, " + failures + " failures");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
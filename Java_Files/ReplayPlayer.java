@@ -0,0 +1,173 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plays back a replay file written by {@link ReplayRecorder}.
+ *
+ * The file is memory-mapped, so only the parts that are played are read from the disk. Seeking restores the
+ * keyframe of the block holding the tick and simulates the rest of the way, so it never steps more than
+ * KEYFRAME_INTERVAL ticks; fast-forward is the simulation alone, without drawing.
+ */
+public class ReplayPlayer {
+
+    final Path path;
+    final MappedByteBuffer file;
+    final GameState state; // Match being played
+    final SnapshotCodec codec = new SnapshotCodec();
+    final int interval; // Ticks of a block
+    final int tickBytes; // Bytes of the keys of a tick
+    final long startTick; // Tick of the first block
+    final long endTick; // Tick after the last input recorded
+    final long[] blocks; // Position in the file of the inputs of each block (after its snapshot)
+    final int[] snapshots; // Position in the file of the snapshot of each block
+    final int[] inputs; // Inputs of the tick being played
+
+    /**
+     * Constructor to open a replay file of a match with the default kinds of food.
+     *
+     * @param path The replay file.
+     * @throws IOException If the file cannot be read or is not a replay.
+     */
+    public ReplayPlayer(Path path) throws IOException {
+        this(path, FoodCatalog.DEFAULT);
+    }
+
+    /**
+     * Constructor to open a replay file.
+     *
+     * @param path    The replay file.
+     * @param catalog The kinds of food of the match recorded.
+     * @throws IOException If the file cannot be read, is not a replay or was recorded with other kinds of food.
+     */
+    public ReplayPlayer(Path path, FoodCatalog catalog) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Stays valid after closing
+        }
+        if (file.capacity() < ReplayRecorder.HEADER_SIZE || file.getInt(0) != ReplayRecorder.MAGIC) {
+            throw new IOException(path + " is not a replay");
+        }
+        if (file.getShort(ReplayRecorder.VERSION_OFFSET) != ReplayRecorder.FORMAT_VERSION) {
+            throw new IOException(path + " has an unknown replay version " + file.getShort(ReplayRecorder.VERSION_OFFSET));
+        }
+        if (file.getInt(ReplayRecorder.CATALOG_OFFSET) != catalog.checksum()) {
+            throw new IOException(path + " was recorded with another food catalog");
+        }
+        interval = file.getInt(ReplayRecorder.INTERVAL_OFFSET);
+        startTick = file.getLong(ReplayRecorder.START_OFFSET);
+        int players = file.getShort(ReplayRecorder.PLAYERS_OFFSET);
+        state = new GameState(file.getShort(ReplayRecorder.COLUMNS_OFFSET), file.getShort(ReplayRecorder.ROWS_OFFSET),
+                players, file.getInt(ReplayRecorder.FOODS_OFFSET), catalog, file.getLong(ReplayRecorder.SEED_OFFSET));
+        inputs = new int[players];
+        tickBytes = (players + 1) / 2;
+
+        long dataEnd = ReplayRecorder.HEADER_SIZE + file.getLong(ReplayRecorder.LENGTH_OFFSET);
+        long index = file.getLong(ReplayRecorder.INDEX_OFFSET);
+        if (dataEnd > file.capacity() || index > file.capacity() - 4) {
+            throw new IOException(path + " is truncated");
+        }
+        long[] starts;
+        int count;
+        if (index != 0) {
+            count = file.getInt((int) index);
+            starts = new long[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = ReplayRecorder.HEADER_SIZE + file.getLong((int) index + 4 + 8 * i);
+            }
+        } else { // The game stopped before closing the recording: find the blocks written
+            starts = new long[(int) ((dataEnd - ReplayRecorder.HEADER_SIZE) / (4 + (long) interval * tickBytes)) + 1];
+            count = 0;
+            for (long position = ReplayRecorder.HEADER_SIZE; position + 4 <= dataEnd; ) {
+                starts[count++] = position;
+                position += 4 + file.getInt((int) position) + (long) interval * tickBytes;
+            }
+        }
+        while (count > 0 && starts[count - 1] + 4 + file.getInt((int) starts[count - 1]) > dataEnd) {
+            count--; // The last keyframe was not completely written
+        }
+        if (count == 0) {
+            throw new IOException(path + " holds no complete keyframe");
+        }
+        blocks = new long[count];
+        snapshots = new int[count];
+        for (int i = 0; i < count; i++) {
+            snapshots[i] = (int) starts[i] + 4;
+            blocks[i] = snapshots[i] + file.getInt((int) starts[i]);
+        }
+        endTick = startTick + (long) (count - 1) * interval + Math.min(interval, (dataEnd - blocks[count - 1]) / tickBytes);
+        seek(startTick);
+    }
+
+    /**
+     * Move the playback to a tick, restoring the closest keyframe before it.
+     *
+     * @param tick The tick (clamped to the ticks of the replay).
+     */
+    public void seek(long tick) {
+        tick = Math.max(startTick, Math.min(endTick, tick));
+        int block = (int) Math.min(blocks.length - 1, (tick - startTick) / interval);
+        if (state.tick > tick || state.tick < startTick + (long) block * interval) {
+            ByteBuffer snapshot = file.duplicate();
+            snapshot.position(snapshots[block]);
+            codec.decode(snapshot, state);
+        }
+        advance((int) (tick - state.tick));
+    }
+
+    /**
+     * Play ticks of the replay.
+     *
+     * @param ticks Number of ticks.
+     * @return Number of ticks played (fewer at the end of the replay or of the match).
+     */
+    public int advance(int ticks) {
+        int played = 0;
+        while (played < ticks && state.tick < endTick && !state.isOver()) {
+            long offset = state.tick - startTick;
+            int block = (int) Math.min(blocks.length - 1, offset / interval);
+            int position = (int) (blocks[block] + (offset - (long) block * interval) * tickBytes);
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = file.get(position + i / 2) >> 4 * (i % 2) & 0xF;
+            }
+            state.step(inputs);
+            played++;
+        }
+        return played;
+    }
+
+    /**
+     * @return true if the whole replay was played.
+     */
+    public boolean isFinished() {
+        return state.tick >= endTick || state.isOver();
+    }
+
+    /**
+     * @return The match being played.
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    public long getTick() {
+        return state.tick;
+    }
+
+    public long getStartTick() {
+        return startTick;
+    }
+
+    public long getEndTick() {
+        return endTick;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
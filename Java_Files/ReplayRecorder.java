@@ -0,0 +1,313 @@
+package com.mygdx.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records a match into a replay file, to be watched later with {@link ReplayPlayer}.
+ *
+ * A replay is the seed of the match plus the keys of every player at every tick (4 bits per player),
+ * in blocks of KEYFRAME_INTERVAL ticks that start with a full snapshot of the match (see {@link SnapshotCodec}),
+ * so playback can start from any block. File layout:
+ * <pre>
+ * header (HEADER_SIZE bytes)
+ * blocks: [int length of the snapshot][snapshot][keys of each tick: one byte per two players, the first one in the low 4 bits]...
+ * index (written when the recording is closed): [int number of blocks][long offset of each block]...
+ * </pre>
+ *
+ * The tick loop only copies the bytes into a ring buffer in memory; a writer thread moves them into the file
+ * through memory-mapped chunks, so recording never waits for the disk. If the writer falls a whole ring behind,
+ * the recording stops (the replay is cut at that tick) instead of slowing the game.
+ */
+public class ReplayRecorder implements Closeable {
+
+    public final static int MAGIC = 0x534E4B52; // "SNKR"
+    public final static int FORMAT_VERSION = 5; // Changed whenever the format or the rules of the matches change
+    public final static int HEADER_SIZE = 64;
+    public final static int KEYFRAME_INTERVAL = 256; // Ticks of a block
+
+    // Position of the fields of the header
+    final static int VERSION_OFFSET = 4; // short
+    final static int COLUMNS_OFFSET = 6; // short
+    final static int ROWS_OFFSET = 8; // short
+    final static int PLAYERS_OFFSET = 10; // short: number of snakes
+    final static int INTERVAL_OFFSET = 12; // int: ticks of a block
+    final static int SEED_OFFSET = 16; // long: seed of the match
+    final static int START_OFFSET = 24; // long: first tick recorded
+    final static int TICKS_OFFSET = 32; // long: ticks recorded (set when closed)
+    final static int LENGTH_OFFSET = 40; // long: bytes of the blocks (updated while recording)
+    final static int INDEX_OFFSET = 48; // long: position of the index in the file (0 = not written)
+    final static int FOODS_OFFSET = 56; // int: number of pieces of food
+    final static int CATALOG_OFFSET = 60; // int: checksum of the food catalog (see FoodCatalog.checksum())
+
+    final static int CHUNK_SIZE = 1 << 20; // Bytes of the file mapped at once
+    final static int RING_SIZE = 1 << 20; // Bytes that can wait in memory for the writer
+    final static long WRITER_PERIOD_NANOS = 20_000_000; // Time between two wake-ups of the writer
+
+    final Path path;
+    final int columns, rows;
+    final int players, foods;
+    final int tickBytes; // Bytes of the keys of a tick
+    final int catalog; // Checksum of the food catalog
+    final long seed;
+    final long startTick; // Tick of the match when the recording started
+
+    // Written by the tick loop
+    final SnapshotCodec codec = new SnapshotCodec();
+    ByteBuffer keyframe = ByteBuffer.allocate(1 << 12); // Keyframe being encoded
+    final byte[] ring = new byte[RING_SIZE]; // Bytes not yet written to the file
+    volatile long written; // Bytes put in the ring since the start
+    long ticks; // Ticks recorded
+    long[] blocks = new long[64]; // Position of each block in the stream of bytes
+    int blockCount;
+    boolean cut; // The ring was full: nothing more is recorded
+    volatile boolean closed;
+
+    // Written by the writer thread
+    final Thread writer;
+    volatile long flushed; // Bytes already copied into the file
+    volatile boolean finished; // The file is complete and closed
+    volatile IOException failure; // Error of the writer, if any
+
+    /**
+     * Constructor to start recording a match.
+     * The file is created by the writer thread, so this does not touch the disk.
+     *
+     * @param path  The replay file (its directory is created if needed).
+     * @param state The match, at the tick the recording starts.
+     */
+    public ReplayRecorder(Path path, GameState state) {
+        this.path = path;
+        this.columns = state.columns;
+        this.rows = state.rows;
+        this.players = state.snakes.length;
+        this.foods = state.foods.length;
+        this.tickBytes = (players + 1) / 2;
+        this.catalog = state.catalog.checksum();
+        this.seed = state.seed;
+        this.startTick = state.tick;
+        writer = new Thread(this::write, "replay-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return A new replay file in the "replays" directory, named after the current time.
+     */
+    public static Path newReplayPath() {
+        return Paths.get("replays", "match-" + System.currentTimeMillis() + ".replay");
+    }
+
+    /**
+     * Record the keys used by the next tick. Must be called just before each step of the match.
+     *
+     * @param state  The match, before the step.
+     * @param inputs The keys of each player given to the step.
+     */
+    public void record(GameState state, int[] inputs) {
+        if (cut || closed) {
+            return;
+        }
+        if ((state.tick - startTick) % KEYFRAME_INTERVAL == 0 && !writeKeyframe(state)) {
+            return;
+        }
+        if (!reserve(tickBytes)) {
+            return;
+        }
+        long position = written;
+        for (int i = 0; i < tickBytes; i++) {
+            int high = 2 * i + 1 < players ? inputs[2 * i + 1] & 0xF : 0;
+            ring[(int) (position + i) & (RING_SIZE - 1)] = (byte) ((inputs[2 * i] & 0xF) | high << 4);
+        }
+        written = position + tickBytes; // Publishes the bytes to the writer
+        ticks++;
+    }
+
+    /**
+     * Start a new block with a snapshot of the match.
+     *
+     * @param state The match.
+     * @return false if the ring is full.
+     */
+    private boolean writeKeyframe(GameState state) {
+        int maxBytes = 4 + SnapshotCodec.maxBytes(state);
+        if (keyframe.capacity() < maxBytes) {
+            keyframe = ByteBuffer.allocate(Integer.highestOneBit(maxBytes) * 2);
+        }
+        keyframe.clear();
+        keyframe.position(4);
+        codec.encodeFull(state, keyframe);
+        int length = keyframe.position();
+        keyframe.putInt(0, length - 4);
+        if (!reserve(length)) {
+            return false;
+        }
+
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+        }
+        long position = written;
+        blocks[blockCount++] = position;
+        for (int i = 0; i < length; i++) {
+            ring[(int) (position + i) & (RING_SIZE - 1)] = keyframe.get(i);
+        }
+        written = position + length;
+        return true;
+    }
+
+    /**
+     * Check that the ring has room, cutting the recording if it does not.
+     *
+     * @param bytes Bytes that will be written.
+     * @return true if there is room.
+     */
+    private boolean reserve(int bytes) {
+        if (written + bytes - flushed > RING_SIZE) {
+            cut = true;
+            System.err.println("Replay " + path + " cut at tick " + (startTick + ticks) + ": the disk is too slow");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stop recording. The writer thread finishes the file in the background.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * @return true if the file is complete (or the writer failed).
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Wait for the writer thread to finish the file.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void awaitFinished() throws IOException {
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    // Writer thread
+
+    FileChannel channel;
+    MappedByteBuffer header; // First chunk of the file, with the header
+    MappedByteBuffer chunk; // Chunk being written
+    long chunkStart; // Position of the chunk in the file
+
+    /**
+     * Body of the writer thread: copies the bytes of the ring into the file until the recording is closed.
+     */
+    private void write() {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = chunk = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK_SIZE);
+            header.putInt(0, MAGIC);
+            header.putShort(VERSION_OFFSET, (short) FORMAT_VERSION);
+            header.putShort(COLUMNS_OFFSET, (short) columns);
+            header.putShort(ROWS_OFFSET, (short) rows);
+            header.putShort(PLAYERS_OFFSET, (short) players);
+            header.putInt(FOODS_OFFSET, foods);
+            header.putInt(CATALOG_OFFSET, catalog);
+            header.putInt(INTERVAL_OFFSET, KEYFRAME_INTERVAL);
+            header.putLong(SEED_OFFSET, seed);
+            header.putLong(START_OFFSET, startTick);
+
+            while (true) {
+                boolean last = closed; // Read before written, so nothing written before closing is missed
+                long end = written;
+                for (long position = flushed; position < end; position++) {
+                    put(HEADER_SIZE + position, ring[(int) position & (RING_SIZE - 1)]);
+                }
+                flushed = end;
+                header.putLong(LENGTH_OFFSET, end);
+                if (last) {
+                    break;
+                }
+                LockSupport.parkNanos(WRITER_PERIOD_NANOS);
+            }
+            finish();
+        } catch (IOException e) {
+            failure = e;
+            System.err.println("Replay " + path + " could not be written: " + e);
+        } finally {
+            finished = true;
+        }
+    }
+
+    /**
+     * Write a byte in the file, mapping the next chunk when needed.
+     *
+     * @param position Position in the file.
+     * @param value    The byte.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private void put(long position, byte value) throws IOException {
+        if (position >= chunkStart + CHUNK_SIZE) {
+            chunkStart = position - position % CHUNK_SIZE;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, CHUNK_SIZE);
+        }
+        chunk.put((int) (position - chunkStart), value);
+    }
+
+    /**
+     * Write the index of the blocks and the number of ticks, and cut the file to its size.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    private void finish() throws IOException {
+        long index = HEADER_SIZE + flushed;
+        long position = index;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            put(position++, (byte) (blockCount >>> shift));
+        }
+        for (int i = 0; i < blockCount; i++) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                put(position++, (byte) (blocks[i] >>> shift));
+            }
+        }
+        header.putLong(TICKS_OFFSET, ticks);
+        header.putLong(INDEX_OFFSET, index);
+        try {
+            channel.truncate(position); // Not allowed while mapped on some systems: the reader does not need it
+        } catch (IOException e) {
+            // The end of the last chunk stays filled with zeros
+        }
+        channel.close();
+    }
+}
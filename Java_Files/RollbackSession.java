@@ -0,0 +1,246 @@
+package com.mygdx.game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Client-side prediction of a networked match, with rollback.
+ *
+ * The client simulates its own copy of the match without waiting for the server: the local player's keys are
+ * applied at once (or after a configurable input delay) and the other player is predicted to keep pressing
+ * the last keys confirmed by the server. The state before each tick and the inputs used are kept for the last
+ * ticks; when the server confirms inputs that differ from the ones used, the match is rewound to that tick and
+ * simulated again up to the current tick, in the same frame.
+ *
+ * A bigger input delay gives the local keys more time to reach the server before their tick, so fewer
+ * rollbacks happen, at the cost of a slower response to the keys.
+ */
+public class RollbackSession {
+
+    public final static int DEFAULT_HISTORY = 32; // Ticks that can be rewound by default
+
+    final GameState state; // Predicted match
+    final int localPlayer; // Number of the player of this client (1 or 2)
+    final int inputDelay; // Ticks between reading the keys and applying them
+    final int history; // Number of ticks kept (a power of two)
+    final SnapshotCodec codec = new SnapshotCodec(); // Saves and restores the states
+
+    // History, indexed by tick & (history - 1)
+    final ByteBuffer[] saved; // State before each tick
+    final long[] localTicks; // Tick of the local keys stored in each slot (-1 = none)
+    final int[] localInputs; // Local keys of each tick
+    final long[] confirmedTicks; // Tick of the confirmed inputs stored in each slot (-1 = none)
+    final int[][] confirmedInputs; // Inputs of each player used by the server at each tick
+    final int[][] usedInputs; // Inputs of each player used by the prediction at each tick
+    final int[] inputs = new int[2]; // Inputs of the tick being simulated
+
+    long lastLocalTick = -1; // Last tick the local keys were given for
+    int lastLocalInput; // Local keys given for that tick
+    long confirmedUpTo = -1; // Last tick confirmed by the server (ticks are confirmed in order)
+    int lastRemoteInput; // Last keys of the other player confirmed by the server, used as the prediction
+    long rollbackFrom = Long.MAX_VALUE; // First tick simulated with a wrong prediction (MAX_VALUE = none)
+
+    // Statistics
+    long rollbacks; // Number of rollbacks
+    int lastRollbackDepth; // Ticks rewound by the last rollback
+    int maxRollbackDepth; // Most ticks rewound by a rollback
+    long resimulatedTicks; // Total ticks simulated again
+    int frameResimulatedTicks; // Ticks simulated again in the last frame
+    int maxFrameResimulatedTicks; // Most ticks simulated again in a frame
+    long maxResimulationNanos; // Longest time spent simulating again in a frame
+    long stalls; // Ticks not simulated because the server was too far behind
+
+    /**
+     * Constructor to start predicting a match.
+     *
+     * @param start       State of the match received from the server (it is copied).
+     * @param localPlayer Number of the player of this client (1 or 2).
+     * @param inputDelay  Ticks between reading the keys and applying them (0 = apply at once).
+     * @param history     Number of ticks that can be rewound (rounded up to a power of two).
+     */
+    public RollbackSession(GameState start, int localPlayer, int inputDelay, int history) {
+        this.localPlayer = localPlayer;
+        this.inputDelay = inputDelay;
+        this.history = Integer.highestOneBit(Math.max(2, history - 1)) * 2;
+        saved = new ByteBuffer[this.history];
+        localTicks = new long[this.history];
+        localInputs = new int[this.history];
+        confirmedTicks = new long[this.history];
+        confirmedInputs = new int[2][this.history];
+        usedInputs = new int[2][this.history];
+        for (int i = 0; i < this.history; i++) {
+            saved[i] = ByteBuffer.allocate(SnapshotCodec.maxBytes(start) * 2);
+            localTicks[i] = -1;
+            confirmedTicks[i] = -1;
+        }
+
+        // Copy the match through a snapshot
+        state = new GameState(start.columns, start.rows, start.snakes.length, start.foods.length, start.catalog, 0);
+        ByteBuffer copy = saved[0];
+        codec.encodeFull(start, copy);
+        copy.flip();
+        codec.decode(copy, state);
+        confirmedUpTo = state.tick - 1;
+    }
+
+    /**
+     * Give the keys pressed by the local player now; they are applied after the input delay.
+     *
+     * @param mask Mask of the movement keys pressed (see {@link Snake#UP}).
+     * @return The tick the keys are for, to be sent to the server.
+     */
+    public long addLocalInput(int mask) {
+        long tick = Math.max(state.tick + inputDelay, lastLocalTick);
+        // The keys are held until this tick
+        for (long t = Math.max(lastLocalTick + 1, tick - history + 1); t < tick; t++) {
+            setLocalInput(t, lastLocalInput);
+        }
+        setLocalInput(tick, mask);
+        lastLocalTick = tick;
+        lastLocalInput = mask;
+        return tick;
+    }
+
+    private void setLocalInput(long tick, int mask) {
+        int slot = (int) tick & (history - 1);
+        localTicks[slot] = tick;
+        localInputs[slot] = mask;
+    }
+
+    /**
+     * Register the inputs used by the server for a tick.
+     * If they are not the ones used by the prediction, a rollback to this tick happens in the next frame.
+     *
+     * @param tick   The tick.
+     * @param input1 Keys of player 1 used by the server.
+     * @param input2 Keys of player 2 used by the server.
+     */
+    public void confirm(long tick, int input1, int input2) {
+        int slot = (int) tick & (history - 1);
+        confirmedTicks[slot] = tick;
+        confirmedInputs[0][slot] = input1;
+        confirmedInputs[1][slot] = input2;
+        confirmedUpTo = tick;
+        lastRemoteInput = localPlayer == 1 ? input2 : input1;
+
+        if (tick < state.tick && (usedInputs[0][slot] != input1 || usedInputs[1][slot] != input2)) {
+            rollbackFrom = Math.min(rollbackFrom, tick);
+        }
+    }
+
+    /**
+     * Advance the prediction by one frame: rewind and simulate again if a prediction was wrong,
+     * then simulate the new ticks (more if the server is ahead, fewer if it is too far behind).
+     *
+     * @param ticks Number of ticks of the frame (see {@link TickClock#advance(long)}).
+     * @return Number of ticks simulated again.
+     */
+    public int advance(int ticks) {
+        frameResimulatedTicks = 0;
+        if (rollbackFrom < state.tick) {
+            rollback();
+        }
+        rollbackFrom = Long.MAX_VALUE;
+
+        int count = (int) Math.max(ticks, confirmedUpTo + 1 - state.tick);
+        for (int i = 0; i < count; i++) {
+            if (state.tick - confirmedUpTo >= history) { // The oldest unconfirmed tick would leave the history
+                stalls += count - i;
+                break;
+            }
+            if (state.isOver()) { // Wait for the server to confirm (or correct) the end of the match
+                break;
+            }
+            simulate();
+        }
+        return frameResimulatedTicks;
+    }
+
+    /**
+     * Restore the state before the first wrong tick and simulate again up to the current tick.
+     * The listener of the match is not called for the ticks simulated again.
+     */
+    private void rollback() {
+        long start = System.nanoTime();
+        long current = state.tick;
+        int depth = (int) (current - rollbackFrom);
+
+        ByteBuffer snapshot = saved[(int) rollbackFrom & (history - 1)];
+        snapshot.position(0);
+        codec.decode(snapshot, state);
+
+        GameState.Listener listener = state.listener;
+        state.listener = null;
+        while (state.tick < current) {
+            simulate();
+        }
+        state.listener = listener;
+
+        rollbacks++;
+        lastRollbackDepth = depth;
+        maxRollbackDepth = Math.max(maxRollbackDepth, depth);
+        resimulatedTicks += depth;
+        frameResimulatedTicks = depth;
+        maxFrameResimulatedTicks = Math.max(maxFrameResimulatedTicks, depth);
+        maxResimulationNanos = Math.max(maxResimulationNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Save the state and simulate one tick with the confirmed inputs, or the predicted ones.
+     */
+    private void simulate() {
+        long tick = state.tick;
+        int slot = (int) tick & (history - 1);
+
+        ByteBuffer snapshot = saved[slot];
+        if (snapshot.capacity() < SnapshotCodec.maxBytes(state)) {
+            snapshot = saved[slot] = ByteBuffer.allocate(SnapshotCodec.maxBytes(state) * 2);
+        }
+        snapshot.clear();
+        codec.encodeFull(state, snapshot);
+        snapshot.flip();
+
+        if (confirmedTicks[slot] == tick) {
+            inputs[0] = confirmedInputs[0][slot];
+            inputs[1] = confirmedInputs[1][slot];
+        } else {
+            int local = localTicks[slot] == tick ? localInputs[slot] : lastLocalInput;
+            inputs[localPlayer - 1] = local;
+            inputs[2 - localPlayer] = lastRemoteInput;
+        }
+        usedInputs[0][slot] = inputs[0];
+        usedInputs[1][slot] = inputs[1];
+        state.step(inputs);
+    }
+
+    /**
+     * @return The predicted match.
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * @return A line with the statistics of the rollbacks.
+     */
+    public String report() {
+        return String.format("%d rollbacks (last %d ticks, max %d), %d ticks simulated again (max %d in a frame, %.3f ms), %d stalled ticks",
+                rollbacks, lastRollbackDepth, maxRollbackDepth, resimulatedTicks, maxFrameResimulatedTicks,
+                maxResimulationNanos / 1e6, stalls);
+    }
+
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    public int getMaxRollbackDepth() {
+        return maxRollbackDepth;
+    }
+
+    public int getFrameResimulatedTicks() {
+        return frameResimulatedTicks;
+    }
+
+    public long getResimulatedTicks() {
+        return resimulatedTicks;
+    }
+}
@@ -0,0 +1,155 @@
+package com.mygdx.game;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A match hosted by a {@link MatchHost}.
+ *
+ * The room is ticked by one shard thread at a time (it may move to another shard between two ticks).
+ * Other threads only give the keys of the players and read the statistics.
+ */
+public class Room {
+
+    /**
+     * Receives the ticks of a room, on the thread of the shard that ticks it.
+     */
+    public interface Listener {
+        /**
+         * Called after each tick of the room (e.g. to send the state to the clients or to choose the next inputs).
+         *
+         * @param room The room.
+         */
+        void ticked(Room room);
+
+        /**
+         * Called once when the match of the room is over, after its last tick.
+         *
+         * @param room The room.
+         */
+        default void finished(Room room) {
+        }
+    }
+
+    final int id; // Number of the room in its host
+    final GameState state; // Match of the room
+    final Listener listener; // Optional listener (null = none)
+    final AtomicIntegerArray nextInputs; // Keys given for the next tick, by any thread
+    final int[] inputs; // Keys used by the tick being simulated
+
+    // Scheduling, only used by the shard that owns the room
+    long due; // Time the next tick should start (System.nanoTime(), 0 = not scheduled yet)
+    Room next; // Next room in the same slot of the tick wheel
+
+    volatile boolean closed; // Set to remove the room from its host
+    volatile boolean finished; // The room is no longer ticked (match over or room closed)
+
+    // Statistics (written by the shard that ticks the room)
+    volatile long ticks; // Ticks simulated
+    volatile long lagNanos; // Delay between the time a tick was due and the time it started, in the last visit
+    volatile long maxLagNanos; // Longest delay
+    long lagTotalNanos; // Sum of the delays of the visits
+    long visits; // Number of times the room was ticked (one or more ticks each time)
+    volatile long skippedTicks; // Ticks dropped because the room was too late to catch up
+    long tickNanos; // Moving average of the duration of a tick (with the listener)
+
+    /**
+     * Constructor of a room (see {@link MatchHost#createRoom}).
+     *
+     * @param id       Number of the room in its host.
+     * @param state    Match of the room.
+     * @param listener Optional listener of the ticks (null = none).
+     */
+    Room(int id, GameState state, Listener listener) {
+        this.id = id;
+        this.state = state;
+        this.listener = listener;
+        nextInputs = new AtomicIntegerArray(state.getPlayers());
+        inputs = new int[state.getPlayers()];
+    }
+
+    /**
+     * Give the keys pressed by a player, used from the next tick on. Can be called by any thread.
+     *
+     * @param player Number of the player (1 for the first snake).
+     * @param mask   Mask of the movement keys pressed (see {@link Snake#UP}).
+     */
+    public void setInput(int player, int mask) {
+        nextInputs.set(player - 1, mask);
+    }
+
+    /**
+     * Simulate one tick and notify the listener.
+     */
+    void tick() {
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = nextInputs.get(i);
+        }
+        state.step(inputs);
+        ticks++;
+        if (listener != null) {
+            listener.ticked(this);
+        }
+    }
+
+    /**
+     * Remember the delay of a visit of the shard.
+     *
+     * @param lag Delay between the time the tick was due and the time it started.
+     */
+    void recordLag(long lag) {
+        lagNanos = lag;
+        lagTotalNanos += lag;
+        visits++;
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+    }
+
+    /**
+     * Remember the duration of the ticks of a visit of the shard.
+     *
+     * @param nanos Time taken by the ticks of the visit.
+     * @param count Number of ticks of the visit.
+     */
+    void recordTicks(long nanos, int count) {
+        tickNanos += (nanos / count - tickNanos) / 8;
+    }
+
+    /**
+     * Remove the room from its host. The shard drops it before its next tick.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The match of the room. Only safe to read from the listener (the room is ticked by another thread).
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getLagNanos() {
+        return lagNanos;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mygdx.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Work-stealing deque of the rooms ready to tick (Chase-Lev).
+ *
+ * Only the shard that owns the deque pushes rooms, at the bottom, in the order they become due; the owner and
+ * the other shards take the oldest rooms from the top, so the room that has waited the longest is ticked first.
+ * No lock is taken: the shards race for the top with a compare-and-set. Pushing and taking do not allocate
+ * (the array only grows when it is full).
+ */
+class RoomDeque {
+
+    volatile AtomicReferenceArray<Room> rooms = new AtomicReferenceArray<>(64); // Circular array (length is a power of two)
+    volatile long bottom; // Next index pushed by the owner
+    final AtomicLong top = new AtomicLong(); // Next index stolen
+
+    /**
+     * Add a room at the bottom. Only called by the owner.
+     *
+     * @param room The room.
+     */
+    void push(Room room) {
+        long b = bottom, t = top.get();
+        AtomicReferenceArray<Room> array = rooms;
+        if (b - t >= array.length() - 1) {
+            array = grow(array, b, t);
+        }
+        array.set((int) b & (array.length() - 1), room);
+        bottom = b + 1;
+    }
+
+    /**
+     * Take the oldest room. Only called by the owner, which tries again when another shard took it first.
+     *
+     * @return The room, or null if the deque is empty.
+     */
+    Room poll() {
+        while (top.get() < bottom) {
+            Room room = steal();
+            if (room != null) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take the oldest room. Called by the other shards.
+     *
+     * @return The room, or null if the deque is empty or another shard took the room first.
+     */
+    Room steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        AtomicReferenceArray<Room> array = rooms;
+        Room room = array.get((int) t & (array.length() - 1));
+        return top.compareAndSet(t, t + 1) ? room : null;
+    }
+
+    /**
+     * Copy the rooms into an array twice as long. Only called by the owner.
+     */
+    private AtomicReferenceArray<Room> grow(AtomicReferenceArray<Room> array, long b, long t) {
+        AtomicReferenceArray<Room> bigger = new AtomicReferenceArray<>(array.length() * 2);
+        for (long i = t; i < b; i++) {
+            bigger.set((int) i & (bigger.length() - 1), array.get((int) i & (array.length() - 1)));
+        }
+        rooms = bigger;
+        return bigger;
+    }
+}
@@ -0,0 +1,230 @@
+package com.mygdx.game;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a match on its own thread, at a fixed number of ticks per second, while the render thread draws it.
+ *
+ * The two threads never share the match. After its ticks, the simulation copies the match into a {@link View}
+ * and publishes it through a {@link TripleBuffer}: the renderer draws the last view published, without waiting,
+ * and the simulation never waits for a frame. A view is brought up to date with a delta of the match since it
+ * was last filled (see {@link SnapshotCodec}), so the copy only costs the changes of a few ticks.
+ * The keys pressed go the other way, through a {@link KeyEventQueue}, and are given to the keyboard players
+ * before each tick.
+ *
+ * The thread stops by itself when the match is over, after publishing its last view.
+ */
+public class SimulationThread extends Thread implements GameState.Listener {
+
+    public final static int KEY_CAPACITY = 64; // Keys pressed kept until the next tick
+
+    /**
+     * Copy of the match drawn by the renderer.
+     */
+    public static class View {
+        final GameState state; // The match, as it was after the last tick published
+        final SnapshotCodec codec = new SnapshotCodec(); // Changes of the match since this view was filled
+        long time; // Time of the last tick (System.nanoTime()), to interpolate the drawing
+        final long[] eaten = new long[Snake.EFFECT_KINDS + 1]; // Food eaten since the start, by effect (index 0 = none)
+
+        View(GameState match) {
+            state = new GameState(match.columns, match.rows, match.snakes.length, match.foods.length, match.catalog, 0);
+        }
+
+        /**
+         * @param now       Current time (System.nanoTime()).
+         * @param tickNanos Duration of a tick.
+         * @return Fraction of the next tick elapsed since the view was published, from 0 to 1.
+         */
+        public float alpha(long now, long tickNanos) {
+            return Math.max(0f, Math.min(1f, (now - time) / (float) tickNanos));
+        }
+    }
+
+    final GameState state; // The match, only touched by this thread while it runs
+    final Controller[] controllers; // Players of the snakes
+    final ReplayRecorder recorder; // Records the match (null = not recorded)
+    final Metrics metrics; // Time of each tick
+    final TickClock clock;
+    final int[] inputs;
+
+    final KeyEventQueue keys = new KeyEventQueue(KEY_CAPACITY);
+    final TripleBuffer<View> views;
+    final long[] eaten = new long[Snake.EFFECT_KINDS + 1]; // Food eaten, by effect (index 0 = none)
+    ByteBuffer delta; // Delta being copied into a view
+
+    volatile boolean running = true;
+    volatile Throwable failure; // Exception that stopped the simulation (null = none)
+    long waits; // Times the thread slept until the next tick
+
+    /**
+     * Constructor of the simulation of a match. The first view is published right away, so it can be drawn
+     * before the thread is started.
+     *
+     * @param state          The match.
+     * @param controllers    Players of the snakes (the keyboard players are reset).
+     * @param recorder       Records the match (null = not recorded).
+     * @param metrics        Time of each tick.
+     * @param ticksPerSecond Number of ticks per second.
+     * @param maxTicks       Ticks run at most to catch up after a late wake-up.
+     */
+    public SimulationThread(GameState state, Controller[] controllers, ReplayRecorder recorder, Metrics metrics,
+                            int ticksPerSecond, int maxTicks) {
+        super("Simulation");
+        setDaemon(true);
+        this.state = state;
+        this.controllers = controllers;
+        this.recorder = recorder;
+        this.metrics = metrics;
+        clock = new TickClock(ticksPerSecond, maxTicks);
+        inputs = new int[controllers.length];
+        views = new TripleBuffer<>(new View(state), new View(state), new View(state));
+        delta = ByteBuffer.allocate(SnapshotCodec.maxBytes(state) * 2);
+
+        state.setListener(this);
+        for (Controller controller : controllers) {
+            if (controller instanceof KeyboardController) {
+                ((KeyboardController) controller).reset(); // Forget the keys pressed before the match
+            }
+        }
+        publish(System.nanoTime());
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running && !state.isOver()) {
+                long now = System.nanoTime();
+                int ticks = clock.advance(now);
+                takeKeys();
+                for (int i = 0; i < ticks && !state.isOver(); i++) {
+                    metrics.startTick();
+                    for (int j = 0; j < inputs.length; j++) {
+                        inputs[j] = controllers[j].input(state, j + 1);
+                    }
+                    if (recorder != null) {
+                        recorder.record(state, inputs);
+                    }
+                    state.step(inputs);
+                    metrics.endTick(state.getTick());
+                }
+                if (ticks > 0) {
+                    publish(now - clock.accumulator);
+                }
+                if (!state.isOver()) { // Sleep until the next tick is due
+                    waits++;
+                    LockSupport.parkNanos(this, clock.tickNanos - clock.accumulator);
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Give the keys pressed since the last call to the keyboard players.
+     */
+    private void takeKeys() {
+        while (!keys.isEmpty()) {
+            int key = keys.key();
+            long time = keys.time();
+            keys.remove();
+            for (Controller controller : controllers) {
+                if (controller instanceof KeyboardController && ((KeyboardController) controller).keyDown(key, time)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the match into the back view and publish it.
+     *
+     * @param time Time of the last tick.
+     */
+    private void publish(long time) {
+        View view = views.back();
+        int bytes = SnapshotCodec.maxBytes(state);
+        if (delta.capacity() < bytes) { // The snakes grew
+            delta = ByteBuffer.allocate(bytes * 2);
+        }
+        delta.clear();
+        view.codec.encodeDelta(state, delta);
+        delta.flip();
+        view.codec.decode(delta, view.state);
+        view.time = time;
+        System.arraycopy(eaten, 0, view.eaten, 0, eaten.length);
+        views.publish();
+    }
+
+    /**
+     * Count the food eaten, for the sounds played by the renderer.
+     */
+    @Override
+    public void foodEaten(Snake snake, int type) {
+        eaten[state.catalog.effect(type) + 1]++;
+    }
+
+    /**
+     * Queue a key pressed, for the next tick. Called by the render thread.
+     *
+     * @param keycode The key (see Input.Keys).
+     * @param time    Time the key was pressed (System.nanoTime()).
+     */
+    public void keyDown(int keycode, long time) {
+        keys.offer(keycode, time);
+    }
+
+    /**
+     * Take the last view published. Called by the render thread.
+     *
+     * @return The view, which stays unchanged until the next call.
+     */
+    public View latest() {
+        return views.latest();
+    }
+
+    /**
+     * @return true once the thread stopped (the match is over, or the simulation failed).
+     */
+    public boolean isFinished() {
+        return !running;
+    }
+
+    /**
+     * Stop the thread and wait for it: the match can then be read by the calling thread.
+     *
+     * @throws IllegalStateException If the simulation failed.
+     */
+    public void finish() {
+        running = false;
+        LockSupport.unpark(this);
+        boolean interrupted = false;
+        while (isAlive()) {
+            try {
+                join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("The simulation of the match failed", failure);
+        }
+    }
+
+    /**
+     * @return How often each thread waited or skipped, once the thread is finished.
+     */
+    public String report() {
+        return clock.getTicks() + " ticks (" + clock.getCaughtUpTicks() + " caught up, " + clock.getDroppedTicks()
+                + " dropped), " + waits + " sleeps; views: " + views.getPublishes() + " published, "
+                + views.getOverwritten() + " never drawn, " + views.getTaken() + " drawn, " + views.getRepeated()
+                + " frames without a new view; keys: " + keys.getDropped() + " dropped";
+    }
+}
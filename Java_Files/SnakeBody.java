@@ -0,0 +1,305 @@
+package com.mygdx.game;
+
+/**
+ * Body of a snake, stored as a circular buffer of grid cells.
+ *
+ * Each cell is packed into a single int (column in the high 16 bits, row in the low 16 bits),
+ * so moving the snake is O(1) and does not allocate: the head is written in front of the buffer
+ * and the tail is dropped from its end. The buffer doubles its capacity when the snake outgrows it.
+ *
+ * Index 0 is the head and index length() - 1 is the tail.
+ * Only the read methods are public, the body is changed by {@link Snake}.
+ *
+ * To draw only the segments on screen, the body is cut into blocks of BLOCK consecutive segments and
+ * the bounding box of each block is kept up to date as the snake moves: segment i belongs to block
+ * floor((heads - 1 - i) / BLOCK), so a segment stays in the same block from the time it is added to the time
+ * it is removed. The box of a block is not shrunk when its segments leave the tail, so it may be bigger than
+ * the block, never smaller.
+ *
+ * The sprite of each segment between the head and the tail (straight or turning, see KIND_VERTICAL...)
+ * is also kept alongside its cell. It only depends on the segment and its two neighbours, so it is
+ * computed once, when a segment gets its second neighbour (the old head after a move, the old tail after
+ * a growth), instead of at every frame.
+ */
+public class SnakeBody {
+
+    int[] cells = new int[16]; // Packed cells, the capacity is always a power of two
+    int first; // Position of the head in the array
+    int length; // Number of segments
+    long heads; // Number of heads ever added in front of the body (used by the snapshot deltas)
+
+    // Sprite of a segment between the head and the tail, chosen from its neighbours
+    public static final byte KIND_NONE = 0; // Not computed (head and tail), or the neighbours are not next to the segment
+    public static final byte KIND_VERTICAL = 1;
+    public static final byte KIND_HORIZONTAL = 2;
+    public static final byte KIND_TURN_UP_LEFT = 3;
+    public static final byte KIND_TURN_UP_RIGHT = 4;
+    public static final byte KIND_TURN_DOWN_LEFT = 5;
+    public static final byte KIND_TURN_DOWN_RIGHT = 6;
+    public static final int KINDS = 7;
+
+    byte[] kinds = new byte[16]; // Sprite of each segment, at the same position as its cell
+
+    public static final int BLOCK = 32; // Segments per block of the bounding boxes
+    int[] boxes = new int[4 * 2]; // Min x, min y, max x and max y of each block (indexed by block number & (blocks - 1))
+
+    /**
+     * Pack a grid cell into an int.
+     *
+     * @param x Column of the cell.
+     * @param y Row of the cell.
+     * @return The packed cell.
+     */
+    public static int pack(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    /**
+     * @param cell A packed cell.
+     * @return The column of the cell.
+     */
+    public static int unpackX(int cell) {
+        return cell >> 16;
+    }
+
+    /**
+     * @param cell A packed cell.
+     * @return The row of the cell.
+     */
+    public static int unpackY(int cell) {
+        return (short) cell;
+    }
+
+    /**
+     * @return Number of segments of the body.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param i Index of the segment (0 = head).
+     * @return The packed cell of the segment.
+     */
+    public int cell(int i) {
+        return cells[(first + i) & (cells.length - 1)];
+    }
+
+    /**
+     * @param i Index of the segment (0 = head).
+     * @return The column of the segment.
+     */
+    public int x(int i) {
+        return unpackX(cell(i));
+    }
+
+    /**
+     * @param i Index of the segment (0 = head).
+     * @return The row of the segment.
+     */
+    public int y(int i) {
+        return unpackY(cell(i));
+    }
+
+    /**
+     * @param i Index of a segment between the head and the tail (1 to length() - 2).
+     * @return The sprite of the segment (KIND_VERTICAL...).
+     */
+    public byte kind(int i) {
+        return kinds[(first + i) & (kinds.length - 1)];
+    }
+
+    /**
+     * Choose the sprite of a segment from the cells of its neighbours.
+     *
+     * @param previous The packed cell of the segment towards the head.
+     * @param cell     The packed cell of the segment.
+     * @param next     The packed cell of the segment towards the tail.
+     * @return The sprite of the segment (KIND_VERTICAL...).
+     */
+    public static byte classify(int previous, int cell, int next) {
+        int x = unpackX(cell), y = unpackY(cell);
+        int previousX = unpackX(previous), previousY = unpackY(previous);
+        int nextX = unpackX(next), nextY = unpackY(next);
+        if (previousX == x && nextX == x) {
+            return KIND_VERTICAL;
+        } else if (previousY == y && nextY == y) {
+            return KIND_HORIZONTAL;
+        } else if ((previousX < x && nextY > y) || (nextX < x && previousY > y)) {
+            return KIND_TURN_UP_LEFT;
+        } else if ((previousX > x && nextY > y) || (nextX > x && previousY > y)) {
+            return KIND_TURN_UP_RIGHT;
+        } else if ((previousX < x && nextY < y) || (nextX < x && previousY < y)) {
+            return KIND_TURN_DOWN_LEFT;
+        } else if ((previousX > x && nextY < y) || (nextX > x && previousY < y)) {
+            return KIND_TURN_DOWN_RIGHT;
+        }
+        return KIND_NONE;
+    }
+
+    /**
+     * Compute the sprite of a segment that just got its two neighbours.
+     *
+     * @param i Index of the segment (1 to length() - 2).
+     */
+    private void classify(int i) {
+        kinds[(first + i) & (kinds.length - 1)] = classify(cell(i - 1), cell(i), cell(i + 1));
+    }
+
+    /**
+     * Checks if any segment of the body is on the given cell.
+     *
+     * @param cell The packed cell.
+     * @return true if the body occupies the cell.
+     */
+    public boolean contains(int cell) {
+        for (int i = 0; i < length; i++) {
+            if (cell(i) == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a new head in front of the body.
+     *
+     * @param cell The packed cell of the new head.
+     */
+    void addFirst(int cell) {
+        ensureCapacity();
+        first = (first - 1) & (cells.length - 1);
+        cells[first] = cell;
+        long sequence = heads; // Number of the new head (see block)
+        addToBox(Math.floorDiv(sequence, BLOCK), cell, length == 0 || Math.floorMod(sequence, BLOCK) == 0);
+        length++;
+        heads++;
+        if (length >= 3) { // The old head is now between two segments
+            classify(1);
+        }
+    }
+
+    /**
+     * Add a new segment after the tail.
+     *
+     * @param cell The packed cell of the new tail.
+     */
+    void addLast(int cell) {
+        ensureCapacity();
+        cells[(first + length) & (cells.length - 1)] = cell;
+        long sequence = heads - 1 - length; // Number of the new tail (see block)
+        addToBox(Math.floorDiv(sequence, BLOCK), cell, length == 0 || Math.floorMod(sequence, BLOCK) == BLOCK - 1);
+        length++;
+        if (length >= 3) { // The old tail is now between two segments
+            classify(length - 2);
+        }
+    }
+
+    /**
+     * Remove the tail of the body.
+     *
+     * @return The packed cell of the removed tail.
+     */
+    int removeLast() {
+        length--;
+        return cells[(first + length) & (cells.length - 1)];
+    }
+
+    /**
+     * Remove every segment (the count of heads is kept).
+     */
+    void clear() {
+        first = 0;
+        length = 0;
+    }
+
+    /**
+     * @param i Index of the segment (0 = head).
+     * @return Number of the block of the segment.
+     */
+    public long block(int i) {
+        return Math.floorDiv(heads - 1 - i, BLOCK);
+    }
+
+    /**
+     * @param i Index of a segment (0 = head).
+     * @return Index after the last segment of the block of the segment (towards the tail).
+     */
+    public int blockEnd(int i) {
+        long last = block(i) * BLOCK; // Number of the segment of the block closest to the tail
+        return (int) Math.min(length, heads - last);
+    }
+
+    /**
+     * Find the first block, from a segment towards the tail, whose box overlaps a rectangle of cells.
+     *
+     * @param i    Index of the segment to start from (0 = head).
+     * @param minX First column of the rectangle.
+     * @param minY First row of the rectangle.
+     * @param maxX Last column of the rectangle.
+     * @param maxY Last row of the rectangle.
+     * @return Index of the first segment of that block from i on, or length() if there is none.
+     */
+    public int nextBlockIn(int i, int minX, int minY, int maxX, int maxY) {
+        int mask = boxes.length / 4 - 1;
+        while (i < length) {
+            int box = (int) (block(i) & mask) * 4;
+            if (boxes[box] <= maxX && boxes[box + 1] <= maxY && boxes[box + 2] >= minX && boxes[box + 3] >= minY) {
+                return i;
+            }
+            i = blockEnd(i);
+        }
+        return length;
+    }
+
+    /**
+     * Add a cell to the bounding box of a block.
+     *
+     * @param block Number of the block.
+     * @param cell  The packed cell.
+     * @param reset true if the cell is the first one of the block (the box is the cell alone).
+     */
+    private void addToBox(long block, int cell, boolean reset) {
+        int box = (int) (block & (boxes.length / 4 - 1)) * 4;
+        int x = unpackX(cell), y = unpackY(cell);
+        if (reset) {
+            boxes[box] = x;
+            boxes[box + 1] = y;
+            boxes[box + 2] = x;
+            boxes[box + 3] = y;
+        } else {
+            boxes[box] = Math.min(boxes[box], x);
+            boxes[box + 1] = Math.min(boxes[box + 1], y);
+            boxes[box + 2] = Math.max(boxes[box + 2], x);
+            boxes[box + 3] = Math.max(boxes[box + 3], y);
+        }
+    }
+
+    /**
+     * Double the buffer if it is full, keeping the head at position 0.
+     * The boxes are rebuilt to have room for the blocks of the bigger buffer.
+     */
+    private void ensureCapacity() {
+        if (length < cells.length) {
+            return;
+        }
+        int[] bigger = new int[cells.length * 2];
+        byte[] biggerKinds = new byte[bigger.length];
+        for (int i = 0; i < length; i++) {
+            bigger[i] = cell(i);
+            biggerKinds[i] = kind(i);
+        }
+        cells = bigger;
+        kinds = biggerKinds;
+        first = 0;
+
+        int blocks = Integer.highestOneBit(cells.length / BLOCK + 1) * 2; // Blocks spanned by a full buffer, at most
+        if (blocks * 4 > boxes.length) {
+            boxes = new int[blocks * 4];
+            for (int i = length - 1; i >= 0; i--) {
+                long sequence = heads - 1 - i;
+                addToBox(Math.floorDiv(sequence, BLOCK), cell(i), i == length - 1 || Math.floorMod(sequence, BLOCK) == 0);
+            }
+        }
+    }
+}
@@ -1,447 +1,679 @@
-package com.mygdx.game;
-
-import com.badlogic.gdx.ApplicationAdapter;
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
-import com.badlogic.gdx.audio.Music;
-import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
-import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.scenes.scene2d.ui.Label;
-import com.badlogic.gdx.utils.ScreenUtils;
-import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.utils.viewport.ScreenViewport;
-import com.badlogic.gdx.graphics.Texture;
-
-import static java.lang.Thread.sleep;
-/**
- * Multiplayer Snake Game
- *
- * This application was developed as a final work for the Object-Oriented Programming Discipline (SCC0204)
- *
- * This game is basically an enhanced version of the classic Snake Game, transforming it into Snake Battle.
- * Since the game is local multiplayer, the main objective is to get the other snake to collide.
- * In the event of a snake colliding with the body of another, the other wins.
- * If one snake collides with the wall, the other wins.
- * In case of collision of both snakes (at the same time with the wall or head to head) the size of the snake is used as a tiebreaker.
- * There is no collision between snakes and their own bodies.
- *
- * The game has screens: Start screen, skin choice screen (player 1 and player 2), the battlefield, victory screen (player 1 and player2)
- * There are 5 possible "skins" for the snake, which must be chosen before every game.
- * The music used is and the sound effects
- * 4 new types of food have been added in addition to the regular apple:
- * Silver apple - Guarantees 3 points and 3 additional size spaces
- * Golden apple - Guarantees 5 points and 5 additional size spaces
- * Ice flake - Guarantees 1 points and 1 additional size space in addition to leaving the other snake with half the movement
- * Radius - Guarantees 1 points and 1 additional space in addition to leaving the other snake with double the movement
- * Ice flake and lightning effects are cumulative up to 3 times and last for 11 moves (time can be extended)
- *
- * @author Victor Hugo Mendonça Melo - 14610386
- * @author Matheus Rodrigues Ferreira - 14762149
- * @author Joao Rissi Magnani - 14582823
- *
- * @version 2024.06.15
- */
-
-/**
- * Main class for the Snake Game.
- * It extends ApplicationAdapter which provides basic game loop methods.
- */
-public class SnakeGame extends ApplicationAdapter {
-
-    ShapeRenderer shapeRenderer; // For rendering shapes like the snake body
-    OrthographicCamera camera; // Camera for viewing the game world
-    Stage stage; // Stage for UI elements
-    SpriteBatch batch; // For rendering textures
-
-    // Constants for board dimensions and square size
-    public final static int WIDTH = 900;
-    public final static int HEIGHT = 900;
-    public final static int SQUARE_SIZE = 30;
-
-    Texture startScreen; // Texture for the start screen
-    Texture chooseScreen1; // Texture for player1 choose screen
-    Texture chooseScreen2; // Texture for player2 choose screen
-    Texture winScreen1; // Texture if player1 wins
-    Texture winScreen2; // Texture if player2 wins
-
-    Snake snake1; // First snake
-    Snake snake2; // Second snake
-    Food food1; // First food
-    Food food2; // Second food
-
-    Sound freezing, shock, eating; // Food related sound effects
-    Sound choosing; // Sound effect related to buttons
-    Music backgroundMusic; // Background music
-    Music winning; // Music for when the game ends and the winner is determined
-
-    // -1 = game hasn't started yet / 0 = snakes are fighting / 1 = The game is over
-    int gameEndS1 = -1; // State of the game for snake 1
-    int gameEndS2 = -1; // State of the game for snake 2
-
-    // Textures for the "sample" snakes - skin selection screen
-    Texture headGreen, headBlue, headRed, headYellow, headWhite;
-    Texture bodyGreen, bodyBlue, bodyRed, bodyYellow, bodyWhite;
-    Texture tailGreen, tailBlue, tailRed, tailYellow, tailWhite;
-
-    int choosed1; // Chosen skin for snake 1
-    int choosed2; // Chosen skin for snake 2
-
-    // 0 = menu screen / 1 = player1 skin choice screen /  2 = player2 skin choice screen
-    int menuState = 0; // Current menu state
-
-    BitmapFont font;
-
-    /**
-     * Called when the application is created and repeated.
-     * Initializes game objects and loads textures.
-     */
-    @Override
-    public void create() {
-        // LibGDX settings
-        shapeRenderer = new ShapeRenderer();
-        stage = new Stage(new ScreenViewport());
-        camera = new OrthographicCamera();
-        camera.setToOrtho(false, WIDTH, HEIGHT);
-        batch = new SpriteBatch();
-
-        // Initializing sound effects
-        freezing = Gdx.audio.newSound(Gdx.files.internal("freezesound.mp3"));
-        shock = Gdx.audio.newSound(Gdx.files.internal("shockeffect.mp3"));
-        eating = Gdx.audio.newSound(Gdx.files.internal("eatsoundeffect.wav"));
-        choosing = Gdx.audio.newSound(Gdx.files.internal("choosesoundeffect.mp3"));
-
-        // Initializing music
-        winning = Gdx.audio.newMusic(Gdx.files.internal("winsoundeffect.mp3"));
-        backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("backgroundmusic.wav"));
-
-        // start the playback of the background music immediately
-        backgroundMusic.setLooping(true);
-        backgroundMusic.play();
-
-        // Loading skins for the mannequins of choice
-        headGreen = new Texture(Gdx.files.internal("headup.png"));
-        headBlue = new Texture(Gdx.files.internal("headup_texture_blue.png"));
-        headRed = new Texture(Gdx.files.internal("headup_texture_red.png"));
-        headYellow = new Texture(Gdx.files.internal("headup_texture_yellow.png"));
-        headWhite = new Texture(Gdx.files.internal("headup2.png"));
-
-        bodyGreen = new Texture(Gdx.files.internal("bodyvertical.png"));
-        bodyBlue = new Texture(Gdx.files.internal("bodyvertical_texture_blue.png"));
-        bodyRed = new Texture(Gdx.files.internal("bodyvertical_texture_red.png"));
-        bodyYellow = new Texture(Gdx.files.internal("bodyvertical_texture_yellow.png"));
-        bodyWhite = new Texture(Gdx.files.internal("bodyvertical2.png"));
-
-        tailGreen = new Texture(Gdx.files.internal("tailup.png"));
-        tailBlue = new Texture(Gdx.files.internal("tailup_texture_blue.png"));
-        tailRed = new Texture(Gdx.files.internal("tailup_texture_red.png"));
-        tailYellow = new Texture(Gdx.files.internal("tailup_texture_yellow.png"));
-        tailWhite = new Texture(Gdx.files.internal("tailup2.png"));
-
-        // Load screens
-        startScreen = new Texture(Gdx.files.internal("startscreen.png"));
-        chooseScreen1 = new Texture(Gdx.files.internal("choosescreen1.png"));
-        chooseScreen2 = new Texture(Gdx.files.internal("chosescreen2.png"));
-        winScreen1 = new Texture(Gdx.files.internal("winscreenp1.png"));
-        winScreen2 = new Texture(Gdx.files.internal("winscreenp2.png"));
-
-        font = new BitmapFont();
-        font.setColor(Color.WHITE);
-        font.getData().setScale(2);
-
-    }
-
-    /**
-     * Update method to handle game logic updates.
-     * This method is called periodically to update the state of the game.
-     */
-    public void update() {
-        int delay = 9; // Delay between updates
-
-        // Check if snakes have eaten food
-        checkEaten(snake1, snake2);
-        checkEaten(snake2, snake1);
-
-        // Calculate new direction for each snake
-        snake1.dirCalc();
-        snake2.dirCalc();
-
-        // Update snake positions based on their mod value
-        // Ensuring that if the snake has any speed effect, it is applied
-        if (snake1.uptade % snake1.mod == 0) {
-            snake1.updatePlayer();
-        }
-        if (snake2.uptade % snake2.mod == 0) {
-            snake2.updatePlayer();
-        }
-
-        // Reset mod value if duration of any effect is zero
-        if (snake1.duration == 0) {
-            snake1.mod = 8;
-        }
-        if (snake2.duration == 0) {
-            snake2.mod = 8;
-        }
-
-        // Increment update counters
-        snake1.uptade = (snake1.uptade + 1) % 64;
-        snake2.uptade = (snake1.uptade + 1) % 64;
-
-        // Decrement duration if greater than zero
-        if (snake1.duration > 0) {
-            snake1.duration--;
-        }
-        if (snake2.duration > 0) {
-            snake2.duration--;
-        }
-
-        // Check if game has ended for either snake
-        gameEndS1 = snake1.checkGameEnd(snake2.body);
-        gameEndS2 = snake2.checkGameEnd(snake1.body);
-
-        stagger(delay); // Introduce a delay
-    }
-
-    /**
-     * Check if a snake has eaten the food and handle the logic.
-     *
-     * @param snake The snake to check.
-     * @param otherSnake The other snake in the game.
-     */
-    private void checkEaten(Snake snake, Snake otherSnake) {
-        int type = 0;
-        int foodEaten = snake.checkCollideWithFood(food1, food2);
-
-        if (foodEaten == 1) {
-            type = food1.eaten(snake, otherSnake);
-            food1.renew(snake.body, otherSnake.body);
-        }
-        if (foodEaten == 2) {
-            type = food2.eaten(snake, otherSnake);
-            food2.renew(snake.body, otherSnake.body);
-        }
-
-        // Food sound effect
-        switch (type){
-            case 1:
-            case 4:
-            case 5:
-                eating.play();
-                break;
-            case 2:
-                freezing.play();
-                break;
-            case 3:
-                shock.play();
-                break;
-            case 0:
-                break;
-        }
-    }
-
-    /**
-     * Get the number key pressed.
-     *
-     * @return The number corresponding to the key pressed, or -1 if none.
-     */
-    private int getPressedNumber() {
-        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_1)) return 1;
-        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_2)) return 2;
-        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_3)) return 3;
-        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_4)) return 4;
-        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_5)) return 5;
-        return -1;
-    }
-
-    /**
-     * Draw the start screen.
-     */
-    private void drawStart() {
-        batch.begin();
-        batch.draw(startScreen, -25, 238);
-        batch.end();
-    }
-
-    /**
-     * Draw the choose screen.
-     *
-     * @param chooseScreen The texture to be drawn for the choose screen.
-     */
-    private void drawChoose(Texture chooseScreen) {
-        batch.begin();
-
-        batch.draw(chooseScreen, -25, 425);
-
-        // Draw snake heads
-        batch.draw(headGreen, 265, 445);
-        batch.draw(headWhite, 350, 445);
-        batch.draw(headBlue, 435, 445);
-        batch.draw(headRed, 520, 445);
-        batch.draw(headYellow, 605, 445);
-
-        // Draw snake bodies
-        batch.draw(bodyGreen, 265, 415);
-        batch.draw(bodyWhite, 350, 415);
-        batch.draw(bodyBlue, 435, 415);
-        batch.draw(bodyRed, 520, 415);
-        batch.draw(bodyYellow, 605, 415);
-
-        // Draw snake tails
-        batch.draw(tailGreen, 265, 385);
-        batch.draw(tailWhite, 350, 385);
-        batch.draw(tailBlue, 435, 385);
-        batch.draw(tailRed, 520, 385);
-        batch.draw(tailYellow, 605, 385);
-
-        batch.end();
-    }
-
-    /**
-     * Draw the end screen.
-     *
-     * @param winner The player number who won.
-     */
-    private void drawEnd(int winner) {
-        batch.begin();
-        if (winner == 1) {
-            batch.draw(winScreen1, -25, 238);
-        } else {
-            batch.draw(winScreen2, -25, 238);
-        }
-
-        // Print the final score for each snake
-        font.setColor(new Color(0.45f, 1f, 0.3f, 1.0f));
-        font.draw(batch, "Player 1 Score: " + snake1.size, 25, 80);
-        font.draw(batch, "Player 2 Score: " + snake2.size, 25, 40);
-        batch.end();
-    }
-
-    /**
-     * Delay the game for a certain amount of time.
-     *
-     * @param delay The amount of time to delay in milliseconds.
-     */
-    private void stagger(int delay) {
-        try {
-            sleep(delay);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Main render loop of the game.
-     * Called periodically to render the game and handle user input.
-     */
-    @Override
-    public void render() {
-        ScreenUtils.clear(0, 0, 0, 1);
-        camera.update();
-
-        Label.LabelStyle labelStyle = new Label.LabelStyle();
-        labelStyle.font = new BitmapFont();
-        labelStyle.fontColor = Color.WHITE;
-
-        // Handle game states
-        if (gameEndS1 == -1 && gameEndS2 == -1) {
-            if (menuState == 0) {
-                drawStart();
-                if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
-                    choosing.play();
-                    menuState = 1;
-                }
-            } else if (menuState == 1) {
-                drawChoose(chooseScreen1);
-                if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_1) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_2) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_3) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_4) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_5)) {
-                    choosed1 = getPressedNumber();
-                    choosing.play();
-                    menuState = 2;
-                }
-            } else if (menuState == 2) {
-                drawChoose(chooseScreen2);
-                if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_1) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_2) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_3) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_4) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_5)) {
-                    choosed2 = getPressedNumber();
-                    choosing.play();
-                    menuState = 0;
-                    gameEndS1 = 0;
-                    gameEndS2 = 0;
-                }
-
-                // Initialize snakes and food
-                snake1 = new Snake(SQUARE_SIZE, SQUARE_SIZE, Input.Keys.W, Input.Keys.S, Input.Keys.A, Input.Keys.D, SQUARE_SIZE, choosed1);
-                snake2 = new Snake(WIDTH - 2 * SQUARE_SIZE, HEIGHT - 2 * SQUARE_SIZE, Input.Keys.UP, Input.Keys.DOWN, Input.Keys.LEFT, Input.Keys.RIGHT, -SQUARE_SIZE, choosed2);
-
-                food1 = new Food(snake1.body, snake2.body);
-                food2 = new Food(snake1.body, snake2.body);
-            }
-
-        } else if (gameEndS1 == 0 && gameEndS2 == 0) {
-            update();
-            batch.begin();
-            batch.draw(food1.foodImage, food1.x, food1.y);
-            batch.draw(food2.foodImage, food2.x, food2.y);
-            snake1.draw(batch);
-            snake2.draw(batch);
-            batch.end();
-
-        } else if (gameEndS1 == 1 || gameEndS2 == 1) {
-            backgroundMusic.pause();
-            winning.play();
-            if (gameEndS1 == gameEndS2) { // Both crashed
-                if (snake1.size > snake2.size) {
-                    drawEnd(1);
-                } else {
-                    drawEnd(2);
-                }
-            }
-
-            else if (gameEndS1 == 1) {
-                drawEnd(2);
-            } else {
-                drawEnd(1);
-            }
-
-            if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
-                choosing.play();
-                winning.stop();
-                gameEndS1 = -1;
-                gameEndS2 = -1;
-                create();
-            }
-
-            if(Gdx.input.isKeyJustPressed(Input.Keys.ENTER)){
-                choosing.play();
-                winning.stop();
-                System.exit(0);
-            }
-        }
-
-        stage.act();
-        shapeRenderer.setProjectionMatrix(camera.combined);
-        shapeRenderer.begin(ShapeType.Filled);
-        shapeRenderer.end();
-        stage.draw();
-        stage.clear();
-    }
-
-    /**
-     * Dispose of assets when the application is destroyed.
-     */
-    @Override
-    public void dispose() {
-        winning.dispose();
-        freezing.dispose();
-        backgroundMusic.dispose();
-        shock.dispose();
-        eating.dispose();
-        food1.foodImage.dispose();
-        food2.foodImage.dispose();
-        shapeRenderer.dispose();
-        stage.dispose();
-    }
-
-}
\ No newline at end of file
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Multiplayer Snake Game
+ *
+ * This application was developed as a final work for the Object-Oriented Programming Discipline (SCC0204)
+ *
+ * This game is basically an enhanced version of the classic Snake Game, transforming it into Snake Battle.
+ * Since the game is local multiplayer, the main objective is to get the other snake to collide.
+ * In the event of a snake colliding with the body of another, the other wins.
+ * If one snake collides with the wall, the other wins.
+ * In case of collision of both snakes (at the same time with the wall or head to head) the size of the snake is used as a tiebreaker.
+ * There is no collision between snakes and their own bodies.
+ *
+ * The game has screens: Start screen, skin choice screen (player 1 and player 2), the battlefield, victory screen (player 1 and player2)
+ * There are 5 possible "skins" for the snake, which must be chosen before every game.
+ * The music used is and the sound effects
+ * 4 new types of food have been added in addition to the regular apple:
+ * Silver apple - Guarantees 3 points and 3 additional size spaces
+ * Golden apple - Guarantees 5 points and 5 additional size spaces
+ * Ice flake - Guarantees 1 points and 1 additional size space in addition to leaving the other snake with half the movement
+ * Radius - Guarantees 1 points and 1 additional space in addition to leaving the other snake with double the movement
+ * Ice flake and lightning effects are cumulative up to 3 times and last for 11 moves (time can be extended)
+ *
+ * @author Victor Hugo Mendonça Melo - 14610386
+ * @author Matheus Rodrigues Ferreira - 14762149
+ * @author Joao Rissi Magnani - 14582823
+ *
+ * @version 2024.06.15
+ */
+
+/**
+ * Main class for the Snake Game.
+ * It extends ApplicationAdapter which provides basic game loop methods.
+ */
+public class SnakeGame extends ApplicationAdapter {
+
+    ShapeRenderer shapeRenderer; // For rendering shapes like the snake body
+    OrthographicCamera camera; // Camera for viewing the screens
+    OrthographicCamera worldCamera; // Camera for viewing the whole board of a match
+    FollowCamera[] views; // Camera of each player, when the board does not fit in the window (null = whole board)
+    Stage stage; // Stage for UI elements
+    SpriteBatch batch; // For rendering textures
+
+    // Constants for window dimensions and square size
+    public final static int WIDTH = 900;
+    public final static int HEIGHT = 900;
+    public final static int SQUARE_SIZE = 30;
+
+    // Board dimensions, in grid cells (set with -Dsnake.columns and -Dsnake.rows)
+    final int columns = Integer.getInteger("snake.columns", GameState.COLUMNS);
+    final int rows = Integer.getInteger("snake.rows", GameState.ROWS);
+
+    // Kinds of food (read from the file given with -Dsnake.foodCatalog) and pieces of food on the board (-Dsnake.foods)
+    final FoodCatalog catalog = FoodCatalog.fromSystemProperty();
+    final int foods = Integer.getInteger("snake.foods", GameState.FOODS);
+
+    final static Color SCORE_COLOR = new Color(0.45f, 1f, 0.3f, 1.0f); // Color of the final scores
+
+    // Replay controls
+    public final static int REPLAY_FAST_FORWARD = 16; // Speed of the replay while the right arrow is held
+    public final static int REPLAY_REWIND_TICKS = 5 * TickClock.TICKS_PER_SECOND; // Ticks the left arrow goes back
+
+    public final static int LOADING_BUDGET_MILLIS = 8; // Time each frame may spend finishing the loading of assets
+
+    // Time the application was launched (set by the launcher), used for the startup timing report
+    static long launchTime;
+
+    AssetManager assets; // Loads the images and sounds in the background
+    boolean loaded; // True when all the assets are ready
+    String loadingText; // Progress of the loading shown on the start screen
+    int loadingPercent = -1; // Progress shown in loadingText
+    long firstFrameTime; // Time the first frame was drawn (0 = not drawn yet)
+
+    Sprites sprites; // Atlas with all the images of the game
+
+    Texture startScreen; // Texture for the start screen (loaded first, outside of the atlas)
+    TextureRegion chooseScreen1; // Image for player1 choose screen
+    TextureRegion chooseScreen2; // Image for player2 choose screen
+    TextureRegion winScreen1; // Image if player1 wins
+    TextureRegion winScreen2; // Image if player2 wins
+
+    GameState state; // State of the current match (run by the simulation thread until the match is over)
+    SimulationThread simulation; // Runs the current match (null = no match running)
+    long[] eatenPlayed = new long[Snake.EFFECT_KINDS + 1]; // Food eaten whose sound was played, by effect (see SimulationThread.View)
+    float alpha; // Fraction of the next tick elapsed, to interpolate the drawing
+    SnakeSkin[] skins = new SnakeSkin[GameState.PLAYERS]; // Skin of each snake
+    Controller[] controllers = { // Players of the snakes
+            new KeyboardController(Input.Keys.W, Input.Keys.S, Input.Keys.A, Input.Keys.D),
+            new KeyboardController(Input.Keys.UP, Input.Keys.DOWN, Input.Keys.LEFT, Input.Keys.RIGHT)
+    };
+    TickClock clock = new TickClock(TickClock.TICKS_PER_SECOND, TickClock.MAX_TICKS_PER_FRAME); // Decides how many ticks each frame of a replay runs
+    ReplayRecorder recorder; // Records the current (or last) match
+    ReplayPlayer replay; // Replay being watched on the end screen (null = none)
+    String replayText; // Time of the replay shown on the screen
+    long replaySecond = -1; // Second of the replay shown in replayText
+
+    Sound freezing, shock, eating; // Food related sound effects
+    Sound choosing; // Sound effect related to buttons
+    Music backgroundMusic; // Background music
+    Music winning; // Music for when the game ends and the winner is determined
+
+    // -1 = game hasn't started yet / 0 = snakes are fighting / 1 = The game is over
+    int gameEndS1 = -1; // State of the game for snake 1
+    int gameEndS2 = -1; // State of the game for snake 2
+
+    // Skins of the "sample" snakes - skin selection screen (indexed by the skin number)
+    SnakeSkin[] previews = new SnakeSkin[6];
+
+    int choosed1; // Chosen skin for snake 1
+    int choosed2; // Chosen skin for snake 2
+
+    // 0 = menu screen / 1 = player1 skin choice screen /  2 = player2 skin choice screen
+    int menuState = 0; // Current menu state
+
+    BitmapFont font;
+    String scoreText1, scoreText2; // Final score of each player, built once when the match ends
+
+    // Checks that frames do not allocate (enabled with -Dsnake.checkAllocations=true)
+    AllocationProbe allocationProbe = AllocationProbe.fromSystemProperty();
+
+    // Time of the ticks and of the frames, shown over the screen with F3 (enabled from the start with -Dsnake.metrics=true)
+    Metrics metrics = Metrics.fromSystemProperty();
+    GLProfiler profiler; // Counts the texture bindings while the metrics are shown
+
+    /**
+     * Called when the application is created.
+     * Loads the start screen and queues the other assets, which are loaded while the start screen is shown.
+     */
+    @Override
+    public void create() {
+        if (launchTime == 0) { // Not started by DesktopLauncher
+            launchTime = System.nanoTime();
+        }
+
+        // LibGDX settings
+        shapeRenderer = new ShapeRenderer();
+        stage = new Stage(new ScreenViewport());
+        camera = new OrthographicCamera();
+        camera.setToOrtho(false, WIDTH, HEIGHT);
+        worldCamera = new OrthographicCamera();
+        worldCamera.setToOrtho(false, columns * SQUARE_SIZE, rows * SQUARE_SIZE); // The board fills the window
+        if (columns * SQUARE_SIZE > WIDTH || rows * SQUARE_SIZE > HEIGHT) { // Split screen, each half follows a snake
+            views = new FollowCamera[]{new FollowCamera(0, 0, WIDTH / 2 - 1, HEIGHT),
+                    new FollowCamera(WIDTH / 2 + 1, 0, WIDTH / 2 - 1, HEIGHT)};
+        }
+        batch = new SpriteBatch();
+        profiler = new GLProfiler(Gdx.graphics);
+        if (metrics.isEnabled()) {
+            profiler.enable();
+        }
+
+        // The movement keys are received as events, so no key pressed between two frames is lost
+        Gdx.input.setInputProcessor(new InputAdapter() {
+            @Override
+            public boolean keyDown(int keycode) {
+                return SnakeGame.this.keyDown(keycode);
+            }
+        });
+
+        font = new BitmapFont();
+        font.setColor(Color.WHITE);
+        font.getData().setScale(2);
+
+        // Load the start screen right away, so it can be shown on the first frame
+        assets = new AssetManager();
+        assets.load("startscreen.png", Texture.class);
+        startScreen = assets.finishLoadingAsset("startscreen.png");
+
+        // Queue the other images
+        Sprites.queue(assets, catalog);
+
+        // Queue the sound effects
+        assets.load("freezesound.mp3", Sound.class);
+        assets.load("shockeffect.mp3", Sound.class);
+        assets.load("eatsoundeffect.wav", Sound.class);
+        assets.load("choosesoundeffect.mp3", Sound.class);
+
+        // Queue the music
+        assets.load("winsoundeffect.mp3", Music.class);
+        assets.load("backgroundmusic.wav", Music.class);
+    }
+
+    /**
+     * Continue loading the assets for a limited time and set up the game when everything is ready.
+     */
+    private void loadAssets() {
+        if (!assets.update(LOADING_BUDGET_MILLIS)) {
+            return;
+        }
+
+        // Pack all the images into the atlas
+        sprites = new Sprites(assets, catalog);
+
+        // Loading skins for the mannequins of choice
+        for (int skin = 1; skin < previews.length; skin++) {
+            previews[skin] = sprites.acquireSkin(skin);
+        }
+
+        // Load screens
+        chooseScreen1 = sprites.get("choosescreen1");
+        chooseScreen2 = sprites.get("chosescreen2");
+        winScreen1 = sprites.get("winscreenp1");
+        winScreen2 = sprites.get("winscreenp2");
+
+        // Initializing sound effects
+        freezing = assets.get("freezesound.mp3", Sound.class);
+        shock = assets.get("shockeffect.mp3", Sound.class);
+        eating = assets.get("eatsoundeffect.wav", Sound.class);
+        choosing = assets.get("choosesoundeffect.mp3", Sound.class);
+
+        // Initializing music
+        winning = assets.get("winsoundeffect.mp3", Music.class);
+        backgroundMusic = assets.get("backgroundmusic.wav", Music.class);
+
+        // start the playback of the background music immediately
+        backgroundMusic.setLooping(true);
+        backgroundMusic.play();
+
+        loaded = true;
+        Gdx.app.log("Startup", "first frame after " + (firstFrameTime - launchTime) / 1_000_000 + " ms, playable after "
+                + (System.nanoTime() - launchTime) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Take the last view of the match published by the simulation thread and play the sounds of the food eaten since the last frame.
+     *
+     * @return The match to be drawn.
+     */
+    private GameState update() {
+        SimulationThread.View view = simulation.latest();
+        alpha = view.alpha(System.nanoTime(), TickClock.TICK_NANOS);
+        playSounds(view.eaten);
+
+        // Check if game has ended for either snake
+        if (simulation.isFinished()) {
+            simulation.finish(); // The match can now be read from this thread
+            Gdx.app.log("Simulation", simulation.report());
+            simulation = null;
+            gameEndS1 = state.getGameEnd(1);
+            gameEndS2 = state.getGameEnd(2);
+        }
+        return view.state;
+    }
+
+    /**
+     * Called for every key pressed, before the frame is rendered: during a match, the movement keys are passed to
+     * the simulation thread, which queues them for the player they are bound to.
+     *
+     * @param keycode The key (see Input.Keys).
+     * @return true if the key moves a snake.
+     */
+    boolean keyDown(int keycode) {
+        if (simulation == null) {
+            return false;
+        }
+        for (Controller controller : controllers) {
+            if (controller instanceof KeyboardController && ((KeyboardController) controller).binds(keycode)) {
+                simulation.keyDown(keycode, Gdx.input.getCurrentEventTime());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Play the replay of the last match: the right arrow fast-forwards while held, the left arrow goes back a few seconds.
+     */
+    private void updateReplay() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.LEFT)) {
+            replay.seek(replay.getTick() - REPLAY_REWIND_TICKS);
+        }
+        int ticks = clock.advance(System.nanoTime());
+        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
+            ticks *= REPLAY_FAST_FORWARD;
+        }
+        replay.advance(ticks);
+
+        long second = replay.getTick() / TickClock.TICKS_PER_SECOND;
+        if (second != replaySecond) {
+            replaySecond = second;
+            replayText = "Replay " + second + " / " + replay.getEndTick() / TickClock.TICKS_PER_SECOND + " s";
+        }
+    }
+
+    /**
+     * Open the replay of the last match, once its file is written.
+     */
+    private void startReplay() {
+        if (recorder == null || !recorder.isFinished()) {
+            return;
+        }
+        try {
+            replay = new ReplayPlayer(recorder.getPath(), catalog);
+            replaySecond = -1;
+            clock.reset();
+        } catch (IOException e) {
+            Gdx.app.error("Replay", "cannot open " + recorder.getPath(), e);
+        }
+    }
+
+    /**
+     * Play the sound effects of the food eaten since the last frame (once per kind of sound, even if several were eaten).
+     *
+     * @param eaten Food eaten since the start of the match, by effect (index 0 = none).
+     */
+    private void playSounds(long[] eaten) {
+        for (int i = 0; i < eaten.length; i++) {
+            if (eaten[i] == eatenPlayed[i]) {
+                continue;
+            }
+            eatenPlayed[i] = eaten[i];
+            // Food sound effect, given by the effect of the food
+            switch (i - 1) {
+                case Snake.EFFECT_SLOW:
+                    freezing.play();
+                    break;
+                case Snake.EFFECT_HASTE:
+                    shock.play();
+                    break;
+                default:
+                    eating.play();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Get the number key pressed.
+     *
+     * @return The number corresponding to the key pressed, or -1 if none.
+     */
+    private int getPressedNumber() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_1)) return 1;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_2)) return 2;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_3)) return 3;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_4)) return 4;
+        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_5)) return 5;
+        return -1;
+    }
+
+    /**
+     * Draw the start screen.
+     */
+    private void drawStart() {
+        batch.begin();
+        batch.draw(startScreen, -25, 238);
+
+        // Show the progress of the loading
+        if (!loaded) {
+            int percent = (int) (assets.getProgress() * 100);
+            if (percent != loadingPercent) {
+                loadingPercent = percent;
+                loadingText = "Loading " + percent + "%";
+            }
+            font.draw(batch, loadingText, 25, 40);
+        }
+        batch.end();
+    }
+
+    /**
+     * Draw the choose screen.
+     *
+     * @param chooseScreen The image to be drawn for the choose screen.
+     */
+    private void drawChoose(TextureRegion chooseScreen) {
+        batch.begin();
+
+        batch.draw(chooseScreen, -25, 425);
+
+        // Draw the head, body and tail of each sample snake (Green, White, Blue, Red, Yellow)
+        for (int skin = 1; skin < previews.length; skin++) {
+            int x = 265 + (skin - 1) * 85;
+            batch.draw(previews[skin].headUp, x, 445);
+            batch.draw(previews[skin].bodyVertical, x, 415);
+            batch.draw(previews[skin].tailDown, x, 385);
+        }
+
+        batch.end();
+    }
+
+    /**
+     * Draw a piece of food.
+     *
+     * @param food The food to be drawn.
+     */
+    private void drawFood(Food food) {
+        if (food.type == 0) { // The board is full, the food is not on it
+            return;
+        }
+        batch.draw(sprites.food(food.type), food.x * SQUARE_SIZE, food.y * SQUARE_SIZE);
+    }
+
+    /**
+     * Draw the board of a match: the food and the snakes still on the board.
+     * A board that fits in the window is drawn whole; on a bigger board each player has a camera that
+     * follows its snake, side by side in the window.
+     *
+     * @param shown The match to be drawn.
+     */
+    private void drawMatch(GameState shown) {
+        if (views == null) {
+            worldCamera.update();
+            batch.setProjectionMatrix(worldCamera.combined);
+            batch.begin();
+            drawBoard(shown, 0, 0, shown.columns - 1, shown.rows - 1);
+            batch.end();
+        } else {
+            for (int i = 0; i < views.length; i++) {
+                FollowCamera view = views[i];
+                view.follow(shown.snakes[Math.min(i, shown.snakes.length - 1)], alpha, shown.columns, shown.rows);
+                view.apply(batch);
+                batch.begin();
+                drawBoard(shown, view.minX, view.minY, view.maxX, view.maxY);
+                batch.end();
+            }
+            Gdx.gl.glViewport(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        }
+        batch.setProjectionMatrix(camera.combined);
+    }
+
+    /**
+     * Draw the food and the snakes inside a rectangle of cells (the part of the board on screen),
+     * so the time taken depends on what is on screen and not on the size of the board.
+     *
+     * @param shown The match to be drawn.
+     * @param minX  First column on screen.
+     * @param minY  First row on screen.
+     * @param maxX  Last column on screen.
+     * @param maxY  Last row on screen.
+     */
+    private void drawBoard(GameState shown, int minX, int minY, int maxX, int maxY) {
+        // Food: look at the cells on screen or at the pieces of food, whichever are fewer
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) < shown.foods.length) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int food = shown.board.foodAt(x, y);
+                    if (food >= 0) {
+                        drawFood(shown.foods[food]);
+                    }
+                }
+            }
+        } else {
+            for (Food food : shown.foods) {
+                if (food.x >= minX && food.x <= maxX && food.y >= minY && food.y <= maxY) {
+                    drawFood(food);
+                }
+            }
+        }
+
+        for (int i = 0; i < shown.snakes.length; i++) {
+            if (shown.gameEnd[i] != 2) {
+                skins[i].draw(batch, shown.snakes[i], alpha, minX, minY, maxX, maxY);
+            }
+        }
+    }
+
+    /**
+     * Draw the end screen.
+     *
+     * @param winner The player number who won.
+     */
+    private void drawEnd(int winner) {
+        batch.begin();
+        if (winner == 1) {
+            batch.draw(winScreen1, -25, 238);
+        } else {
+            batch.draw(winScreen2, -25, 238);
+        }
+
+        // Print the final score for each snake
+        font.setColor(SCORE_COLOR);
+        font.draw(batch, scoreText1, 25, 80);
+        font.draw(batch, scoreText2, 25, 40);
+        batch.end();
+    }
+
+    /**
+     * Main render loop of the game.
+     * Called periodically to render the game and handle user input.
+     */
+    @Override
+    public void render() {
+        metrics.startFrame();
+        int renderCalls = batch.totalRenderCalls;
+        ScreenUtils.clear(0, 0, 0, 1);
+        camera.update();
+
+        if (firstFrameTime == 0) {
+            firstFrameTime = System.nanoTime();
+        }
+        if (!loaded) {
+            loadAssets();
+        }
+
+        // Handle game states
+        if (gameEndS1 == -1 && gameEndS2 == -1) {
+            if (menuState == 0) {
+                drawStart();
+                if (loaded && Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+                    choosing.play();
+                    menuState = 1;
+                }
+            } else if (menuState == 1) {
+                drawChoose(chooseScreen1);
+                if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_1) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_2) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_3) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_4) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_5)) {
+                    choosed1 = getPressedNumber();
+                    choosing.play();
+                    menuState = 2;
+                }
+            } else if (menuState == 2) {
+                drawChoose(chooseScreen2);
+                if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_1) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_2) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_3) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_4) || Gdx.input.isKeyJustPressed(Input.Keys.NUM_5)) {
+                    choosed2 = getPressedNumber();
+                    choosing.play();
+                    menuState = 0;
+                    gameEndS1 = 0;
+                    gameEndS2 = 0;
+
+                    // Initialize snakes and food
+                    state = new GameState(columns, rows, GameState.PLAYERS, foods, catalog, System.nanoTime());
+                    recorder = new ReplayRecorder(ReplayRecorder.newReplayPath(), state);
+                    Arrays.fill(eatenPlayed, 0);
+                    simulation = new SimulationThread(state, controllers, recorder, metrics, TickClock.TICKS_PER_SECOND, TickClock.MAX_TICKS_PER_FRAME);
+                    simulation.start();
+                    skins[0] = sprites.acquireSkin(choosed1);
+                    skins[1] = sprites.acquireSkin(choosed2);
+                }
+            }
+
+        } else if (gameEndS1 == 0 && gameEndS2 == 0) {
+            GameState shown = update();
+            if (gameEndS1 != 0 || gameEndS2 != 0) {
+                finishMatch();
+            }
+            drawMatch(shown);
+
+        } else if (replay != null) {
+            updateReplay();
+            alpha = clock.alpha();
+            drawMatch(replay.getState());
+            batch.begin();
+            font.setColor(Color.WHITE);
+            font.draw(batch, replayText, 25, HEIGHT - 25);
+            batch.end();
+
+            if (Gdx.input.isKeyJustPressed(Input.Keys.R) || Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+                replay = null; // Back to the end screen
+            }
+
+        } else if (gameEndS1 == 1 || gameEndS2 == 1) {
+            drawEnd(state.winner());
+
+            if (Gdx.input.isKeyJustPressed(Input.Keys.R)) {
+                startReplay();
+            }
+
+            if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+                choosing.play();
+                winning.stop();
+                gameEndS1 = -1;
+                gameEndS2 = -1;
+                for (SnakeSkin skin : skins) {
+                    sprites.releaseSkin(skin);
+                }
+
+                // Back to the start screen, with the assets already loaded
+                backgroundMusic.stop();
+                backgroundMusic.play();
+            }
+
+            if(Gdx.input.isKeyJustPressed(Input.Keys.ENTER)){
+                choosing.play();
+                winning.stop();
+                System.exit(0);
+            }
+        }
+
+        stage.act();
+        shapeRenderer.setProjectionMatrix(camera.combined);
+        shapeRenderer.begin(ShapeType.Filled);
+        shapeRenderer.end();
+        stage.draw();
+        stage.clear();
+
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            metrics.setEnabled(!metrics.isEnabled());
+            if (metrics.isEnabled()) {
+                profiler.enable();
+            } else {
+                profiler.disable();
+            }
+        }
+        if (metrics.isEnabled()) {
+            batch.begin();
+            font.setColor(Color.YELLOW);
+            font.draw(batch, metrics.text(System.nanoTime()), 10, HEIGHT - 60);
+            batch.end();
+        }
+        metrics.endFrame(currentScreen(), batch.totalRenderCalls - renderCalls,
+                profiler.isEnabled() ? profiler.getTextureBindings() : 0);
+        profiler.reset();
+
+        if (allocationProbe != null) {
+            allocationProbe.frame(currentScreen(), Texture.getNumManagedTextures());
+        }
+    }
+
+    /**
+     * Switch to the end screen: play the victory music and build the texts of the final scores.
+     */
+    private void finishMatch() {
+        backgroundMusic.pause();
+        winning.play();
+        recorder.close(); // The file is finished in the background
+        scoreText1 = "Player 1 Score: " + state.getSnake(1).size;
+        scoreText2 = "Player 2 Score: " + state.getSnake(2).size;
+    }
+
+    /**
+     * Number of the screen being shown, used to measure the allocations of each screen separately.
+     *
+     * @return 0 to 2 for the menu states, 3 for the battlefield, 4 for the end screen and 5 for the replay.
+     */
+    int currentScreen() {
+        if (gameEndS1 == -1 && gameEndS2 == -1) {
+            return menuState;
+        }
+        if (gameEndS1 == 0 && gameEndS2 == 0) {
+            return 3;
+        }
+        return replay != null ? 5 : 4;
+    }
+
+    /**
+     * Dispose of assets when the application is destroyed.
+     */
+    @Override
+    public void dispose() {
+        if (simulation != null) {
+            simulation.finish();
+        }
+        if (recorder != null) {
+            recorder.close(); // Without the index, the replay is still readable up to the last block written
+        }
+        assets.dispose(); // Start screen, sounds and music
+        if (sprites != null) {
+            sprites.dispose();
+        }
+        font.dispose();
+        batch.dispose();
+        shapeRenderer.dispose();
+        stage.dispose();
+    }
+
+}
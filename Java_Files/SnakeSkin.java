@@ -0,0 +1,164 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Images of a snake skin and the drawing of a {@link Snake} with them.
+ * Skins are created and shared by {@link Sprites#acquireSkin(int)}.
+ */
+public class SnakeSkin {
+
+    final int skin; // Number of the skin
+
+    // Regions of the atlas for different parts of the snake
+    TextureRegion headUp, headDown, headLeft, headRight;
+    TextureRegion bodyVertical, bodyHorizontal, bodyTurnUpRight, bodyTurnUpLeft, bodyTurnDownRight, bodyTurnDownLeft;
+    TextureRegion tailUp, tailDown, tailLeft, tailRight;
+    final TextureRegion[] bodyRegions = new TextureRegion[SnakeBody.KINDS]; // Body regions indexed by the kind of segment
+
+    /**
+     * Constructor to resolve the images of a skin.
+     *
+     * @param skin    Chose skin by player
+     * @param sprites The atlas with the images.
+     */
+    SnakeSkin(int skin, Sprites sprites) {
+        this.skin = skin;
+        chooseColor(skin, sprites);
+    }
+
+    /**
+     * Constructor of a skin without images, to draw without a GPU (e.g. in benchmarks).
+     *
+     * @param skin Number of the skin.
+     */
+    SnakeSkin(int skin) {
+        this.skin = skin;
+    }
+
+    /**
+     * Draw the snake on the screen using the provided Batch.
+     *
+     * @param spriteBatch The Batch to draw the snake.
+     * @param snake       The snake to be drawn.
+     * @param alpha       Fraction of the next tick already elapsed, used to interpolate the head.
+     */
+    public void draw(Batch spriteBatch, Snake snake, float alpha) {
+        draw(spriteBatch, snake, alpha, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Draw the segments of the snake inside a rectangle of cells (the part of the board on screen).
+     * The blocks of the body whose bounding box is outside of the rectangle are skipped without
+     * looking at their segments (see {@link SnakeBody#nextBlockIn}).
+     *
+     * @param spriteBatch The Batch to draw the snake.
+     * @param snake       The snake to be drawn.
+     * @param alpha       Fraction of the next tick already elapsed, used to interpolate the head.
+     * @param minX        First column on screen.
+     * @param minY        First row on screen.
+     * @param maxX        Last column on screen.
+     * @param maxY        Last row on screen.
+     */
+    public void draw(Batch spriteBatch, Snake snake, float alpha, int minX, int minY, int maxX, int maxY) {
+        SnakeBody body = snake.body;
+        int size = SnakeGame.SQUARE_SIZE; // Size of a grid cell in pixels
+
+        // Draw the body segments and the tail, one visible block at a time
+        int last = body.length() - 1;
+        for (int i = body.nextBlockIn(1, minX, minY, maxX, maxY); i < last; ) {
+            int end = Math.min(body.blockEnd(i), last);
+            for (; i < end; i++) {
+                int x = body.x(i), y = body.y(i);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    spriteBatch.draw(bodyRegions[body.kind(i)], x * size, y * size); // Kind kept up to date as the snake moves
+                }
+            }
+            i = body.nextBlockIn(i, minX, minY, maxX, maxY);
+        }
+        if (last >= 1) {
+            int tailX = body.x(last), tailY = body.y(last);
+            if (tailX >= minX && tailX <= maxX && tailY >= minY && tailY <= maxY) {
+                drawTail(spriteBatch, body, tailX, tailY, size);
+            }
+        }
+
+        // Draw the head segment, between its position before and after the last tick
+        if (snake.headX + 1 < minX || snake.headX - 1 > maxX || snake.headY + 1 < minY || snake.headY - 1 > maxY) {
+            return;
+        }
+        float headX = (snake.lastX + (snake.headX - snake.lastX) * alpha) * size;
+        float headY = (snake.lastY + (snake.headY - snake.lastY) * alpha) * size;
+        if (snake.auxDx > 0) {
+            spriteBatch.draw(headRight, headX, headY);
+        } else if (snake.auxDx < 0) {
+            spriteBatch.draw(headLeft, headX, headY);
+        } else if (snake.auxDy > 0) {
+            spriteBatch.draw(headUp, headX, headY);
+        } else if (snake.auxDy < 0) {
+            spriteBatch.draw(headDown, headX, headY);
+        }
+    }
+
+    /**
+     * Draw the tail segment.
+     *
+     * @param spriteBatch The Batch to draw the snake.
+     * @param body        The body of the snake.
+     * @param tailX       Column of the tail.
+     * @param tailY       Row of the tail.
+     * @param size        Size of a grid cell in pixels.
+     */
+    private void drawTail(Batch spriteBatch, SnakeBody body, int tailX, int tailY, int size) {
+        int beforeX = body.x(body.length() - 2), beforeY = body.y(body.length() - 2); // Segment before tail
+
+        // Determine the texture based on the orientation of the tail segment
+        if (beforeX < tailX) {
+            spriteBatch.draw(tailRight, tailX * size, tailY * size);
+        } else if (beforeX > tailX) {
+            spriteBatch.draw(tailLeft, tailX * size, tailY * size);
+        } else if (beforeY < tailY) {
+            spriteBatch.draw(tailUp, tailX * size, tailY * size);
+        } else if (beforeY > tailY) {
+            spriteBatch.draw(tailDown, tailX * size, tailY * size);
+        }
+    }
+
+    /**
+     * Resolve the regions of the skin chosen by the player.
+     * The "up" tail is the image of a tail pointing down (and vice versa), as the images are named after the tip.
+     *
+     * @param skin    Player's choice for snake color.
+     * @param sprites The atlas with the images.
+     */
+    private void chooseColor(int skin, Sprites sprites) {
+        String suffix = Sprites.SKIN_SUFFIXES[skin]; // Green, White, Blue, Red or Yellow
+
+        headUp = sprites.get("headup" + suffix);
+        headDown = sprites.get("headdown" + suffix);
+        headLeft = sprites.get("headleft" + suffix);
+        headRight = sprites.get("headright" + suffix);
+
+        bodyVertical = sprites.get("bodyvertical" + suffix);
+        bodyHorizontal = sprites.get("bodyhorizontal" + suffix);
+        bodyTurnUpRight = sprites.get("curverightup" + suffix);
+        bodyTurnUpLeft = sprites.get("curveleftup" + suffix);
+        bodyTurnDownRight = sprites.get("curverightdown" + suffix);
+        bodyTurnDownLeft = sprites.get("curveleftdown" + suffix);
+
+        bodyRegions[SnakeBody.KIND_NONE] = bodyVertical; // Only for segments that are not between two neighbours
+        bodyRegions[SnakeBody.KIND_VERTICAL] = bodyVertical;
+        bodyRegions[SnakeBody.KIND_HORIZONTAL] = bodyHorizontal;
+        bodyRegions[SnakeBody.KIND_TURN_UP_LEFT] = bodyTurnUpLeft;
+        bodyRegions[SnakeBody.KIND_TURN_UP_RIGHT] = bodyTurnUpRight;
+        bodyRegions[SnakeBody.KIND_TURN_DOWN_LEFT] = bodyTurnDownLeft;
+        bodyRegions[SnakeBody.KIND_TURN_DOWN_RIGHT] = bodyTurnDownRight;
+
+        tailUp = sprites.get("taildown" + suffix);
+        tailDown = sprites.get("tailup" + suffix);
+        tailLeft = sprites.get("tailleft" + suffix);
+        tailRight = sprites.get("tailright" + suffix);
+    }
+
+}
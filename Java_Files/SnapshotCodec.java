@@ -0,0 +1,685 @@
+package com.mygdx.game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary snapshots of a match, used to send it over the network, to save it and to restore it.
+ *
+ * A snapshot is a stream of bits (see {@link BitPacker}) starting with the version of the format and its kind:
+ * <ul>
+ * <li>FULL: the whole match. Coordinates take just the bits needed by the board, and a snake body is its head
+ * followed by runs of the direction from each segment to the next one (a straight snake is a single run).</li>
+ * <li>DELTA: the changes since the last snapshot encoded by this codec, usually a new head, a dropped tail and
+ * the counters of the snakes (the effects are only written when one was added or expired).
+ * It can only be decoded into a match that is at the tick of that snapshot.</li>
+ * </ul>
+ * Encoding and decoding do not allocate: snapshots are written to and read from buffers given by the caller.
+ */
+public class SnapshotCodec {
+
+    public final static int VERSION = 4; // Version of the format, changed whenever the format changes
+
+    // Kinds of snapshot
+    public final static int FULL = 0;
+    public final static int DELTA = 1;
+
+    // Direction from one cell to the next one
+    final static int SAME = 0, UP = 1, DOWN = 2, LEFT = 3, RIGHT = 4;
+    final static int JUMP = 7; // Cells that are not neighbours: the next cell is written in full
+    final static int[] CODE_DX = {0, 0, 0, -1, 1};
+    final static int[] CODE_DY = {0, 1, -1, 0, 0};
+
+    final BitPacker bits = new BitPacker();
+
+    // Baseline of the deltas: the match as it was in the last snapshot encoded
+    GameState baseState; // Match encoded (null = no snapshot encoded yet)
+    long baseTick;
+    long baseRandom;
+    int[] baseFoodX = new int[0];
+    int[] baseFoodY = new int[0];
+    int[] baseFoodType = new int[0];
+    long[] baseHeads = new long[0]; // Heads added to the body of each snake
+    int[] baseLength = new int[0];
+    int[] baseSize = new int[0];
+    int[] baseMoveIn = new int[0];
+    long baseEffectChanges;
+
+    /**
+     * Upper bound of the size of a snapshot of a match.
+     *
+     * @param state The match.
+     * @return Maximum number of bytes of a snapshot of the match in its current state.
+     */
+    public static int maxBytes(GameState state) {
+        int bytes = 32 + 5 * state.foods.length + 16 * state.effects.size;
+        for (Snake snake : state.snakes) {
+            bytes += 40 + 5 * snake.body.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Forget the last snapshot encoded, so the next delta is encoded as a full snapshot.
+     * Must be called when the match encoded was changed by other means than stepping it (e.g. restored).
+     */
+    public void reset() {
+        baseState = null;
+    }
+
+    /**
+     * Encode the whole match.
+     *
+     * @param state The match.
+     * @param out   Buffer where the snapshot is written, from its position.
+     * @return Number of bytes written.
+     */
+    public int encodeFull(GameState state, ByteBuffer out) {
+        int start = out.position();
+        bits.startWrite(out);
+        bits.write(VERSION, 8);
+        bits.write(FULL, 2);
+        bits.write(state.columns, 16);
+        bits.write(state.rows, 16);
+        bits.writeVar(state.snakes.length);
+        bits.writeVar(state.foods.length);
+        bits.writeVar(state.tick);
+        writeRandom(state.random.getState());
+        for (int end : state.gameEnd) {
+            bits.write(end, 2);
+        }
+        for (Food food : state.foods) {
+            writeFood(state, food);
+        }
+        writeEffects(state);
+        for (int i = 0; i < state.snakes.length; i++) {
+            if (state.gameEnd[i] == 2) { // A snake out of the match only keeps its final size
+                bits.writeVar(state.snakes[i].size);
+            } else {
+                writeSnake(state, state.snakes[i]);
+            }
+        }
+        bits.finishWrite();
+
+        remember(state);
+        return out.position() - start;
+    }
+
+    /**
+     * Encode the changes of the match since the last snapshot encoded by this codec.
+     * A full snapshot is written instead if there is no such snapshot or if a snake moved more than its length.
+     * A snake that left the match since the last snapshot is only written as out, its body is dropped by the decoder.
+     *
+     * @param state The match, which must be the one of the last snapshot, stepped since then.
+     * @param out   Buffer where the snapshot is written, from its position.
+     * @return Number of bytes written.
+     */
+    public int encodeDelta(GameState state, ByteBuffer out) {
+        if (baseState != state || !canDelta(state)) {
+            return encodeFull(state, out);
+        }
+        int start = out.position();
+        bits.startWrite(out);
+        bits.write(VERSION, 8);
+        bits.write(DELTA, 2);
+        bits.writeVar(baseTick);
+        bits.writeVar(state.tick - baseTick);
+
+        long random = state.random.getState();
+        if (random != baseRandom) {
+            bits.write(1, 1);
+            writeRandom(random);
+        } else {
+            bits.write(0, 1);
+        }
+        for (int end : state.gameEnd) {
+            bits.write(end, 2);
+        }
+        for (int i = 0; i < state.foods.length; i++) {
+            writeFoodDelta(state, state.foods[i], i);
+        }
+        if (state.effects.changes != baseEffectChanges) {
+            bits.write(1, 1);
+            writeEffects(state);
+        } else {
+            bits.write(0, 1);
+        }
+        for (int i = 0; i < state.snakes.length; i++) {
+            if (state.gameEnd[i] == 2) {
+                writeSizeDelta(state.snakes[i], i);
+            } else {
+                writeSnakeDelta(state, state.snakes[i], i);
+            }
+        }
+        bits.finishWrite();
+
+        remember(state);
+        return out.position() - start;
+    }
+
+    /**
+     * Decode a snapshot into a match.
+     * A full snapshot replaces the whole match (which must have the same board dimensions and numbers of snakes and food);
+     * a delta is applied to the match, which must be at the tick the delta was encoded from.
+     *
+     * @param in    Buffer with the snapshot at its position; the position is moved after the snapshot.
+     * @param state The match.
+     * @return The kind of the snapshot decoded (FULL or DELTA).
+     * @throws IllegalArgumentException If the snapshot has another version, board dimensions or numbers of snakes and food.
+     * @throws IllegalStateException    If a delta does not follow the tick of the match.
+     */
+    public int decode(ByteBuffer in, GameState state) {
+        bits.startRead(in);
+        int version = (int) bits.read(8);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + version);
+        }
+        int kind = (int) bits.read(2);
+        if (kind == FULL) {
+            readFull(state);
+        } else {
+            readDelta(state);
+        }
+        bits.finishRead();
+        return kind;
+    }
+
+    /**
+     * Read the rest of a full snapshot.
+     *
+     * @param state The match.
+     */
+    private void readFull(GameState state) {
+        int columns = (int) bits.read(16), rows = (int) bits.read(16);
+        if (columns != state.columns || rows != state.rows) {
+            throw new IllegalArgumentException("Snapshot of a " + columns + "x" + rows + " board");
+        }
+        int players = (int) bits.readVar(), foods = (int) bits.readVar();
+        if (players != state.snakes.length || foods != state.foods.length) {
+            throw new IllegalArgumentException("Snapshot of a match with " + players + " snakes and " + foods + " pieces of food");
+        }
+        state.tick = bits.readVar();
+        state.random.setState(readRandom());
+        for (int i = 0; i < players; i++) {
+            state.gameEnd[i] = (int) bits.read(2);
+        }
+
+        state.board.clear();
+        for (Food food : state.foods) {
+            food.type = 0; // Nothing to take off the board
+            readFood(state, food);
+        }
+        readEffects(state);
+        for (int i = 0; i < players; i++) {
+            if (state.gameEnd[i] == 2) {
+                state.snakes[i].body.clear();
+                state.snakes[i].size = (int) bits.readVar();
+            } else {
+                readSnake(state, state.snakes[i]);
+            }
+        }
+    }
+
+    /**
+     * Read the rest of a delta.
+     *
+     * @param state The match.
+     */
+    private void readDelta(GameState state) {
+        long tick = bits.readVar();
+        if (tick != state.tick) {
+            throw new IllegalStateException("Delta from tick " + tick + " applied to tick " + state.tick);
+        }
+        state.tick += bits.readVar();
+        if (bits.read(1) == 1) {
+            state.random.setState(readRandom());
+        }
+        for (int i = 0; i < state.snakes.length; i++) {
+            int end = (int) bits.read(2);
+            if (end == 2 && state.gameEnd[i] != 2) { // The snake left the match
+                state.snakes[i].leave();
+            }
+            state.gameEnd[i] = end;
+        }
+        for (Food food : state.foods) {
+            if (bits.read(1) == 1) {
+                readFood(state, food);
+            }
+        }
+        if (bits.read(1) == 1) {
+            readEffects(state);
+        } else {
+            while (state.effects.now <= state.tick) { // No effect expired in these ticks
+                state.effects.expire(state.snakes);
+            }
+        }
+        for (int i = 0; i < state.snakes.length; i++) {
+            if (state.gameEnd[i] == 2) {
+                readSizeDelta(state.snakes[i]);
+            } else {
+                readSnakeDelta(state, state.snakes[i]);
+            }
+        }
+    }
+
+    /**
+     * Keep the values of the match as the baseline of the next delta.
+     *
+     * @param state The match just encoded.
+     */
+    private void remember(GameState state) {
+        baseState = state;
+        baseTick = state.tick;
+        baseRandom = state.random.getState();
+        baseEffectChanges = state.effects.changes;
+        if (baseFoodType.length != state.foods.length) {
+            baseFoodX = new int[state.foods.length];
+            baseFoodY = new int[state.foods.length];
+            baseFoodType = new int[state.foods.length];
+        }
+        if (baseHeads.length != state.snakes.length) {
+            int players = state.snakes.length;
+            baseHeads = new long[players];
+            baseLength = new int[players];
+            baseSize = new int[players];
+            baseMoveIn = new int[players];
+        }
+        for (int i = 0; i < state.foods.length; i++) {
+            rememberFood(state.foods[i], i);
+        }
+        for (int i = 0; i < state.snakes.length; i++) {
+            rememberSnake(state.snakes[i], i);
+        }
+    }
+
+    private void rememberFood(Food food, int i) {
+        baseFoodX[i] = food.x;
+        baseFoodY[i] = food.y;
+        baseFoodType[i] = food.type;
+    }
+
+    private void rememberSnake(Snake snake, int i) {
+        baseHeads[i] = snake.body.heads;
+        baseLength[i] = snake.body.length();
+        baseSize[i] = snake.size;
+        baseMoveIn[i] = snake.moveIn;
+    }
+
+    // Effects: number of effects, then the snake, the kind and the ticks left of each one
+
+    private void writeEffects(GameState state) {
+        EffectWheel wheel = state.effects;
+        bits.writeVar(wheel.size);
+        for (int slot = 0; slot < wheel.heads.length; slot++) {
+            for (int entry = wheel.heads[slot]; entry >= 0; entry = wheel.next[entry]) {
+                bits.writeVar(wheel.snakes[entry]);
+                bits.writeVar(wheel.effects[entry]);
+                bits.writeVar(wheel.expiries[entry] - state.tick);
+            }
+        }
+    }
+
+    /**
+     * Read the effects, replacing those of the snakes (the match must already be at the tick of the snapshot).
+     */
+    private void readEffects(GameState state) {
+        state.effects.clear(state.tick + 1);
+        for (Snake snake : state.snakes) {
+            snake.clearEffects();
+        }
+        for (long count = bits.readVar(); count > 0; count--) {
+            int snake = (int) bits.readVar(), effect = (int) bits.readVar();
+            if (snake >= state.snakes.length || effect >= Snake.EFFECT_KINDS) {
+                throw new IllegalArgumentException("Effect " + effect + " on snake " + snake);
+            }
+            state.snakes[snake].addEffect(effect);
+            state.effects.add(snake, effect, state.tick + bits.readVar());
+        }
+    }
+
+    // Random generator (48 bits)
+
+    private void writeRandom(long random) {
+        bits.write(random, 24);
+        bits.write(random >>> 24, 24);
+    }
+
+    private long readRandom() {
+        return bits.read(24) | bits.read(24) << 24;
+    }
+
+    // Coordinates: from -1 to the size of the board (a crashed head may be just outside of it)
+
+    /**
+     * @param size Number of columns or rows of the board.
+     * @return Number of bits of a coordinate.
+     */
+    private static int coordinateBits(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size + 1);
+    }
+
+    private void writeCell(GameState state, int x, int y) {
+        bits.write(x + 1, coordinateBits(state.columns));
+        bits.write(y + 1, coordinateBits(state.rows));
+    }
+
+    private int readCell(GameState state) {
+        int x = (int) bits.read(coordinateBits(state.columns)) - 1;
+        int y = (int) bits.read(coordinateBits(state.rows)) - 1;
+        return SnakeBody.pack(x, y);
+    }
+
+    // Directions
+
+    /**
+     * @param dx Horizontal movement, in grid cells.
+     * @param dy Vertical movement, in grid cells.
+     * @return The direction code of the movement, or JUMP if it is not a single step.
+     */
+    static int code(int dx, int dy) {
+        for (int code = SAME; code <= RIGHT; code++) {
+            if (CODE_DX[code] == dx && CODE_DY[code] == dy) {
+                return code;
+            }
+        }
+        return JUMP;
+    }
+
+    /**
+     * @param from A packed cell.
+     * @param to   Another packed cell.
+     * @return The direction code from a cell to the other.
+     */
+    static int step(int from, int to) {
+        return code(SnakeBody.unpackX(to) - SnakeBody.unpackX(from), SnakeBody.unpackY(to) - SnakeBody.unpackY(from));
+    }
+
+    /**
+     * Write a cell relative to another one: its direction code, and the cell itself if it is not a neighbour.
+     */
+    private void writeStep(GameState state, int from, int to) {
+        int code = step(from, to);
+        bits.write(code, 3);
+        if (code == JUMP) {
+            writeCell(state, SnakeBody.unpackX(to), SnakeBody.unpackY(to));
+        }
+    }
+
+    private int readStep(GameState state, int from) {
+        int code = (int) bits.read(3);
+        if (code == JUMP) {
+            return readCell(state);
+        }
+        return SnakeBody.pack(SnakeBody.unpackX(from) + CODE_DX[code], SnakeBody.unpackY(from) + CODE_DY[code]);
+    }
+
+    /**
+     * Write the movement direction of a snake and the direction of its last move (3 bits each).
+     */
+    private void writeDirections(Snake snake) {
+        int direction = code(snake.dx, snake.dy), last = code(snake.auxDx, snake.auxDy);
+        if (direction == JUMP || last == JUMP) {
+            throw new IllegalStateException("Snake " + snake.id + " moves more than one cell per step");
+        }
+        bits.write(direction, 3);
+        bits.write(last, 3);
+    }
+
+    private void readDirections(Snake snake) {
+        int direction = (int) bits.read(3), last = (int) bits.read(3);
+        snake.dx = CODE_DX[direction];
+        snake.dy = CODE_DY[direction];
+        snake.auxDx = CODE_DX[last];
+        snake.auxDy = CODE_DY[last];
+    }
+
+    // Food: type (the bits needed by the catalog), then position if there is food
+
+    private void writeFood(GameState state, Food food) {
+        bits.write(food.type, state.catalog.typeBits);
+        if (food.type != 0) {
+            writeCell(state, food.x, food.y);
+        }
+    }
+
+    private void writeFoodDelta(GameState state, Food food, int i) {
+        if (food.x == baseFoodX[i] && food.y == baseFoodY[i] && food.type == baseFoodType[i]) {
+            bits.write(0, 1);
+        } else {
+            bits.write(1, 1);
+            writeFood(state, food);
+        }
+    }
+
+    /**
+     * Read a food and move it on the board.
+     */
+    private void readFood(GameState state, Food food) {
+        if (food.type != 0) {
+            state.board.removeFood(food.x, food.y);
+        }
+        food.type = (int) bits.read(state.catalog.typeBits);
+        if (food.type == 0) {
+            food.x = -1;
+            food.y = -1;
+            return;
+        }
+        int cell = readCell(state);
+        food.x = SnakeBody.unpackX(cell);
+        food.y = SnakeBody.unpackY(cell);
+        state.board.addFood(food.x, food.y, food.index);
+    }
+
+    // Snakes
+
+    /**
+     * Write a whole snake: its counters, its head, then its body as runs of directions.
+     */
+    private void writeSnake(GameState state, Snake snake) {
+        bits.writeVar(snake.size);
+        writeDirections(snake);
+        bits.writeVar(snake.moveIn);
+
+        SnakeBody body = snake.body;
+        int length = body.length();
+        writeCell(state, body.x(0), body.y(0));
+        bits.writeVar(length);
+        int i = 1;
+        while (i < length) {
+            int code = step(body.cell(i - 1), body.cell(i));
+            if (code == JUMP) {
+                writeStep(state, body.cell(i - 1), body.cell(i));
+                i++;
+                continue;
+            }
+            int run = 1;
+            while (i + run < length && step(body.cell(i + run - 1), body.cell(i + run)) == code) {
+                run++;
+            }
+            bits.write(code, 3);
+            bits.writeVar(run - 1);
+            i += run;
+        }
+        writeStep(state, body.cell(0), SnakeBody.pack(snake.lastX, snake.lastY));
+    }
+
+    /**
+     * Read a whole snake, putting its body on the board.
+     */
+    private void readSnake(GameState state, Snake snake) {
+        snake.size = (int) bits.readVar();
+        readDirections(snake);
+        snake.moveIn = (int) bits.readVar();
+
+        SnakeBody body = snake.body;
+        body.clear();
+        addLast(state, snake, readCell(state));
+        int length = (int) bits.readVar();
+        while (body.length() < length) {
+            int code = (int) bits.read(3);
+            int tail = body.cell(body.length() - 1);
+            if (code == JUMP) {
+                addLast(state, snake, readCell(state));
+                continue;
+            }
+            int x = SnakeBody.unpackX(tail), y = SnakeBody.unpackY(tail);
+            for (long run = bits.readVar() + 1; run > 0; run--) {
+                x += CODE_DX[code];
+                y += CODE_DY[code];
+                addLast(state, snake, SnakeBody.pack(x, y));
+            }
+        }
+        readHead(state, snake);
+    }
+
+    /**
+     * Checks if the bodies of all the snakes still in the match can be written as a delta.
+     *
+     * @param state The match.
+     * @return true if a delta can describe the changes of the bodies.
+     */
+    private boolean canDelta(GameState state) {
+        for (int i = 0; i < state.snakes.length; i++) {
+            if (state.gameEnd[i] != 2 && !canDelta(state.snakes[i], i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the body of a snake can be written as a delta: it must still hold its head of the last snapshot,
+     * so it is the new heads, followed by the start of the old body, followed by copies of the last segment
+     * kept (added by growing).
+     *
+     * @param snake The snake.
+     * @param i     Index of the snake.
+     * @return true if a delta can describe the changes of the body.
+     */
+    private boolean canDelta(Snake snake, int i) {
+        SnakeBody body = snake.body;
+        long heads = body.heads - baseHeads[i];
+        int run = lastRun(body);
+        if (heads < 0 || heads >= body.length() || run < heads || run - heads + 1 > baseLength[i]) {
+            return false;
+        }
+        for (int j = (int) heads; j > 0; j--) {
+            int code = step(body.cell(j), body.cell(j - 1));
+            if (code == SAME || code == JUMP) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param body A snake body.
+     * @return Index of the first segment of the run of equal segments at the end of the body.
+     */
+    private static int lastRun(SnakeBody body) {
+        int tail = body.cell(body.length() - 1);
+        int i = body.length() - 1;
+        while (i > 0 && body.cell(i - 1) == tail) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Write the changes of a snake: the counters that changed, the new heads (a step of 2 bits each),
+     * the number of segments dropped from the old tail and the number of copies of the tail added by growing.
+     */
+    private void writeSnakeDelta(GameState state, Snake snake, int i) {
+        writeSizeDelta(snake, i);
+        writeDirections(snake);
+        writeVarDelta(snake.moveIn, baseMoveIn[i]);
+
+        SnakeBody body = snake.body;
+        int heads = (int) (body.heads - baseHeads[i]);
+        int run = lastRun(body);
+        int kept = run - heads + 1; // Segments of the old body still in the body
+        bits.writeVar(heads);
+        for (int j = heads; j > 0; j--) {
+            bits.write(step(body.cell(j), body.cell(j - 1)) - 1, 2);
+        }
+        bits.writeVar(baseLength[i] - kept);
+        bits.writeVar(body.length() - run - 1);
+        writeStep(state, body.cell(0), SnakeBody.pack(snake.lastX, snake.lastY));
+    }
+
+    /**
+     * Apply the changes of a snake, moving its body on the board.
+     */
+    private void readSnakeDelta(GameState state, Snake snake) {
+        readSizeDelta(snake);
+        readDirections(snake);
+        snake.moveIn = (int) readVarDelta(snake.moveIn);
+
+        SnakeBody body = snake.body;
+        int x = body.x(0), y = body.y(0);
+        for (long heads = bits.readVar(); heads > 0; heads--) {
+            int code = (int) bits.read(2) + 1;
+            x += CODE_DX[code];
+            y += CODE_DY[code];
+            body.addFirst(SnakeBody.pack(x, y));
+            state.board.add(x, y, snake.id);
+        }
+        for (long removed = bits.readVar(); removed > 0; removed--) {
+            int tail = body.removeLast();
+            state.board.remove(SnakeBody.unpackX(tail), SnakeBody.unpackY(tail), snake.id);
+        }
+        for (long added = bits.readVar(); added > 0; added--) {
+            addLast(state, snake, body.cell(body.length() - 1));
+        }
+        readHead(state, snake);
+    }
+
+    /**
+     * Write the size of a snake if it changed.
+     */
+    private void writeSizeDelta(Snake snake, int i) {
+        if (snake.size != baseSize[i]) {
+            bits.write(1, 1);
+            bits.writeVar(snake.size);
+        } else {
+            bits.write(0, 1);
+        }
+    }
+
+    private void readSizeDelta(Snake snake) {
+        if (bits.read(1) == 1) {
+            snake.size = (int) bits.readVar();
+        }
+    }
+
+    /**
+     * Set the head of a snake from its body and read the position of the head before the last tick.
+     */
+    private void readHead(GameState state, Snake snake) {
+        snake.headX = snake.body.x(0);
+        snake.headY = snake.body.y(0);
+        int last = readStep(state, snake.body.cell(0));
+        snake.lastX = SnakeBody.unpackX(last);
+        snake.lastY = SnakeBody.unpackY(last);
+    }
+
+    /**
+     * Add a segment after the tail of a snake and put it on the board.
+     */
+    private static void addLast(GameState state, Snake snake, int cell) {
+        snake.body.addLast(cell);
+        state.board.add(SnakeBody.unpackX(cell), SnakeBody.unpackY(cell), snake.id);
+    }
+
+    private void writeVarDelta(long value, long base) {
+        if (value == base) {
+            bits.write(0, 1);
+        } else {
+            bits.write(1, 1);
+            bits.writeVar(value);
+        }
+    }
+
+    private long readVarDelta(long value) {
+        return bits.read(1) == 1 ? bits.readVar() : value;
+    }
+}
@@ -0,0 +1,303 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+
+/**
+ * Messages of a {@link MatchServer} sent to its spectators, encoded once for all of them.
+ *
+ * Each tick publishes one message (the inputs and the delta of the tick), and every KEYFRAME_INTERVAL ticks
+ * a keyframe (a full snapshot of the match) is published after it. The messages are kept in a ring of RING
+ * buffers, written by the server and only read by the spectators: every spectator has a cursor on the ring
+ * and its own views of the buffers, and the pending messages are sent with a single gathering write, without
+ * copying them into the connection.
+ *
+ * A spectator that is up to date skips the keyframes. One that falls more than MAX_LAG messages behind
+ * (the network or the client is too slow) skips the messages it missed: after the message it is sending,
+ * it goes on from the last keyframe, so a slow spectator costs at most the ring and never an unbounded buffer.
+ * A spectator that cannot finish a single message before its buffer is reused is disconnected.
+ */
+class SpectatorFeed {
+
+    public final static int RING = 128; // Messages kept (a power of two)
+    public final static int KEYFRAME_INTERVAL = 32; // Ticks between two keyframes
+    public final static int MAX_LAG = RING / 2; // Messages a spectator may be behind before skipping to the last keyframe
+    public final static int SEND_BUFFER = 4 * 1024; // Socket buffer of a spectator (about a second of deltas), so the messages wait in the ring and not in the kernel
+
+    /**
+     * Position of a spectator in the feed.
+     */
+    static class Cursor {
+        final Connection connection;
+        final ByteBuffer[] views = new ByteBuffer[RING]; // Views of the messages of the ring, with their own position
+        final int[] generations = new int[RING]; // Buffer of the ring each view was made from
+        final ByteBuffer[] gather = new ByteBuffer[RING + 1]; // Buffers of the next write
+        final long[] gatherMessages = new long[RING + 1]; // Message of each buffer of the write (-1 = own messages)
+
+        long next; // Next message to send (or being sent)
+        int offset; // Bytes of the next message already sent
+        boolean synced = true; // The spectator has the deltas since its last keyframe (otherwise it waits for a keyframe)
+        long skipTo; // Message to go on from, once the message being sent is finished
+
+        Cursor(Connection connection, long next) {
+            this.connection = connection;
+            this.next = next;
+            skipTo = next;
+        }
+    }
+
+    final ByteBuffer[] messages = new ByteBuffer[RING]; // Message of each slot of the ring (read mode once published)
+    final int[] generations = new int[RING]; // Changed whenever the buffer of a slot is replaced
+    final boolean[] keyframes = new boolean[RING]; // Kind of the message of each slot
+    long published; // Messages published
+    long lastKeyframe = -1; // Last keyframe published (-1 = none)
+
+    final ArrayList<Cursor> cursors = new ArrayList<>();
+    final ArrayList<Connection> lost = new ArrayList<>(); // Spectators removed by the feed, to be disconnected by the server
+
+    // Statistics
+    final Histogram fanOutNanos = new Histogram(); // Time to send the messages of a tick to all the spectators
+    long bytesWritten; // Bytes written to the spectators
+    long skips; // Times a spectator skipped to a keyframe
+    long dropped; // Spectators disconnected because they could not take a single message
+
+    /**
+     * Constructor of an empty feed.
+     */
+    SpectatorFeed() {
+        for (int i = 0; i < RING; i++) {
+            messages[i] = ByteBuffer.allocate(1 << 12);
+        }
+    }
+
+    /**
+     * Add a spectator, which receives the messages published from now on.
+     * Whatever was queued on its connection (e.g. a full snapshot of the match) is sent first.
+     *
+     * @param connection The connection of the spectator.
+     * @throws IOException If the socket cannot be configured.
+     */
+    void add(Connection connection) throws IOException {
+        connection.channel.socket().setSendBufferSize(SEND_BUFFER);
+        connection.cursor = new Cursor(connection, published);
+        cursors.add(connection.cursor);
+    }
+
+    /**
+     * Remove a spectator.
+     *
+     * @param connection The connection of the spectator.
+     * @return true if the connection was a spectator of the feed.
+     */
+    boolean remove(Connection connection) {
+        for (int i = 0; i < cursors.size(); i++) {
+            if (cursors.get(i).connection == connection) {
+                cursors.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start writing the next message, in the buffer of the oldest slot of the ring.
+     * Spectators still sending that slot are removed first (see {@link #lost}).
+     *
+     * @param maxBytes Maximum size of the message (header included).
+     * @return The buffer, where the whole message must be written before calling {@link #publish(boolean)}.
+     */
+    ByteBuffer begin(int maxBytes) {
+        int slot = (int) published & (RING - 1);
+        for (int i = cursors.size() - 1; i >= 0; i--) {
+            Cursor cursor = cursors.get(i);
+            long needed = cursor.offset > 0 ? cursor.next : Math.max(cursor.next, cursor.skipTo);
+            if (needed <= published - RING) { // Still sending the message of this slot
+                cursors.remove(i);
+                lost.add(cursor.connection);
+                dropped++;
+            }
+        }
+        if (messages[slot].capacity() < maxBytes) {
+            messages[slot] = ByteBuffer.allocate(Integer.highestOneBit(maxBytes) * 2);
+            generations[slot]++;
+        }
+        messages[slot].clear();
+        return messages[slot];
+    }
+
+    /**
+     * Publish the message written since {@link #begin(int)}.
+     *
+     * @param keyframe true if the message is a full snapshot.
+     * @return The message, in read mode (it must not be changed).
+     */
+    ByteBuffer publish(boolean keyframe) {
+        int slot = (int) published & (RING - 1);
+        messages[slot].flip();
+        keyframes[slot] = keyframe;
+        if (keyframe) {
+            lastKeyframe = published;
+        }
+        published++;
+        return messages[slot];
+    }
+
+    /**
+     * Send the messages published to every spectator, as far as their sockets accept them without blocking.
+     * The spectators that are too far behind skip to the last keyframe; those whose connection is broken are
+     * removed (see {@link #lost}).
+     */
+    void send() {
+        long start = System.nanoTime();
+        for (int i = cursors.size() - 1; i >= 0; i--) {
+            Cursor cursor = cursors.get(i);
+            if (published - Math.max(cursor.next, cursor.skipTo) > MAX_LAG && lastKeyframe > cursor.next) {
+                cursor.skipTo = lastKeyframe;
+                cursor.synced = false;
+                skips++;
+            }
+            try {
+                write(cursor);
+            } catch (IOException e) {
+                cursors.remove(i);
+                lost.add(cursor.connection);
+            }
+        }
+        if (!cursors.isEmpty()) {
+            fanOutNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Write the pending messages of a spectator with a single gathering write: first its own messages (unless it is
+     * in the middle of a message of the feed), then the messages of the feed it needs.
+     *
+     * @param cursor The spectator.
+     * @throws IOException If the connection is broken.
+     */
+    void write(Cursor cursor) throws IOException {
+        Connection connection = cursor.connection;
+        if (cursor.offset == 0 && cursor.next < cursor.skipTo) {
+            cursor.next = cursor.skipTo;
+        }
+
+        int count = 0;
+        boolean synced = cursor.synced;
+        if (cursor.offset == 0 && connection.out.position() > 0) {
+            connection.out.flip();
+            cursor.gather[count] = connection.out;
+            cursor.gatherMessages[count++] = -1;
+        }
+        long message = cursor.next;
+        if (cursor.offset > 0) { // The rest of the message being sent, then straight to the keyframe if it skipped
+            synced |= keyframes[(int) message & (RING - 1)];
+            count = gather(cursor, count, message++);
+            message = Math.max(message, cursor.skipTo);
+        }
+        for (; message < published; message++) {
+            int slot = (int) message & (RING - 1);
+            if (keyframes[slot] == synced) {
+                continue; // Keyframes for a spectator that is up to date, deltas before the keyframe for one that skipped
+            }
+            synced = true;
+            count = gather(cursor, count, message);
+        }
+        if (count > 0) {
+            long written = connection.channel.write(cursor.gather, 0, count);
+            connection.bytesSent += written;
+            bytesWritten += written;
+        }
+
+        // Move the cursor after what was written
+        for (int i = 0; i < count; i++) {
+            ByteBuffer buffer = cursor.gather[i];
+            long sent = cursor.gatherMessages[i];
+            cursor.gather[i] = null;
+            if (sent < 0) {
+                connection.out.compact();
+                if (connection.out.position() > 0) { // The rest of the buffers were not written either
+                    clearGather(cursor, i + 1, count);
+                    break;
+                }
+                continue;
+            }
+            if (buffer.hasRemaining()) {
+                cursor.next = sent;
+                cursor.offset = buffer.position();
+                clearGather(cursor, i + 1, count);
+                break;
+            }
+            cursor.next = sent + 1;
+            cursor.offset = 0;
+            cursor.synced |= keyframes[(int) sent & (RING - 1)];
+        }
+        if (cursor.offset == 0 && cursor.next < cursor.skipTo) {
+            cursor.next = cursor.skipTo;
+        }
+
+        boolean pending = connection.out.position() > 0 || hasPending(cursor);
+        if (connection.key != null && connection.key.isValid()) {
+            connection.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Add a message to the next write of a spectator.
+     *
+     * @param cursor  The spectator.
+     * @param count   Buffers already in the write.
+     * @param message The message.
+     * @return Buffers in the write.
+     */
+    private int gather(Cursor cursor, int count, long message) {
+        int slot = (int) message & (RING - 1);
+        ByteBuffer view = cursor.views[slot];
+        if (view == null || cursor.generations[slot] != generations[slot]) { // First use, or the buffer was replaced
+            view = messages[slot].duplicate();
+            cursor.views[slot] = view;
+            cursor.generations[slot] = generations[slot];
+        }
+        view.limit(messages[slot].limit()).position(message == cursor.next ? cursor.offset : 0);
+        cursor.gather[count] = view;
+        cursor.gatherMessages[count] = message;
+        return count + 1;
+    }
+
+    /**
+     * Forget the buffers of a write that were not reached.
+     */
+    private static void clearGather(Cursor cursor, int from, int to) {
+        for (int i = from; i < to; i++) {
+            cursor.gather[i] = null;
+        }
+    }
+
+    /**
+     * @param cursor A spectator.
+     * @return true if the spectator has messages of the feed to send.
+     */
+    private boolean hasPending(Cursor cursor) {
+        if (cursor.offset > 0) {
+            return true;
+        }
+        for (long message = Math.max(cursor.next, cursor.skipTo); message < published; message++) {
+            if (keyframes[(int) message & (RING - 1)] != cursor.synced) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The spectators and the cost of sending them the messages of a tick.
+     */
+    String report() {
+        return String.format("Spectators: %d connected, fan-out %.1f us/tick on average (p99 %.1f us, max %.1f us), "
+                        + "%.0f bytes written/tick, %d skips to a keyframe, %d dropped",
+                cursors.size(), fanOutNanos.mean() / 1000.0, fanOutNanos.percentile(0.99) / 1000.0,
+                fanOutNanos.getMax() / 1000.0, fanOutNanos.getCount() == 0 ? 0 : (double) bytesWritten / fanOutNanos.getCount(),
+                skips, dropped);
+    }
+}
@@ -0,0 +1,170 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * All the images of the game packed into a single texture atlas.
+ *
+ * The images are decoded in the background by an AssetManager (see {@link #queue(AssetManager, FoodCatalog)}),
+ * then the atlas is built once, when the game starts, and every screen, skin and food is drawn
+ * from a region of it: nothing is loaded during a match and a whole frame uses one texture.
+ * Skins are shared through a reference-counted cache, so the menu and the snakes use the same regions.
+ */
+public class Sprites implements Disposable {
+
+    public final static int PAGE_SIZE = 2048; // Size of the atlas texture
+
+    // Suffix of the image files of each skin (indexed by the skin number)
+    static final String[] SKIN_SUFFIXES = {null, "", "2", "_texture_blue", "_texture_red", "_texture_yellow"};
+
+    // Parts of a snake, each one is a file per skin
+    static final String[] SKIN_PARTS = {
+            "headup", "headdown", "headleft", "headright",
+            "bodyvertical", "bodyhorizontal", "curverightup", "curveleftup", "curverightdown", "curveleftdown",
+            "tailup", "taildown", "tailleft", "tailright"
+    };
+
+    // Images of the screens (the start screen is loaded on its own, to be shown while the rest loads)
+    static final String[] SCREENS = {"choosescreen1", "chosescreen2", "winscreenp1", "winscreenp2"};
+
+    final TextureAtlas atlas; // Atlas with all the images
+    final TextureRegion[] foods; // Region of each type of food (indexed by the food type, see FoodCatalog)
+
+    final SnakeSkin[] skins = new SnakeSkin[SKIN_SUFFIXES.length]; // Skins in use
+    final int[] references = new int[SKIN_SUFFIXES.length]; // Number of users of each skin
+
+    /**
+     * Queue the loading of all the images of the atlas.
+     *
+     * @param assets  The asset manager of the game.
+     * @param catalog The kinds of food, whose images are loaded.
+     */
+    public static void queue(AssetManager assets, FoodCatalog catalog) {
+        for (String screen : SCREENS) {
+            assets.load(screen + ".png", Pixmap.class);
+        }
+        for (int skin = 1; skin < SKIN_SUFFIXES.length; skin++) {
+            for (String part : SKIN_PARTS) {
+                assets.load(part + SKIN_SUFFIXES[skin] + ".png", Pixmap.class);
+            }
+        }
+        for (int type = 1; type <= catalog.getKinds(); type++) {
+            if (firstWithSprite(catalog, type) == type) {
+                assets.load(catalog.sprite(type) + ".png", Pixmap.class);
+            }
+        }
+    }
+
+    /**
+     * @param catalog The kinds of food.
+     * @param type    A type of food.
+     * @return The first type of food with the same image (several kinds may share an image, which is loaded once).
+     */
+    private static int firstWithSprite(FoodCatalog catalog, int type) {
+        int first = 1;
+        while (!catalog.sprite(first).equals(catalog.sprite(type))) {
+            first++;
+        }
+        return first;
+    }
+
+    /**
+     * Constructor to pack the images queued by {@link #queue(AssetManager, FoodCatalog)} into the atlas.
+     * The images must be already loaded; they are unloaded once packed.
+     *
+     * @param assets  The asset manager of the game.
+     * @param catalog The kinds of food given to queue().
+     */
+    public Sprites(AssetManager assets, FoodCatalog catalog) {
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, 2, false);
+        for (String screen : SCREENS) {
+            pack(packer, assets, screen);
+        }
+        for (int skin = 1; skin < SKIN_SUFFIXES.length; skin++) {
+            for (String part : SKIN_PARTS) {
+                pack(packer, assets, part + SKIN_SUFFIXES[skin]);
+            }
+        }
+        for (int type = 1; type <= catalog.getKinds(); type++) {
+            if (firstWithSprite(catalog, type) == type) {
+                pack(packer, assets, catalog.sprite(type));
+            }
+        }
+        atlas = packer.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        packer.dispose();
+
+        foods = new TextureRegion[catalog.getKinds() + 1];
+        for (int type = 1; type <= catalog.getKinds(); type++) {
+            foods[type] = atlas.findRegion(catalog.sprite(type));
+        }
+    }
+
+    /**
+     * Add a loaded image to the atlas and unload it.
+     *
+     * @param packer The packer of the atlas.
+     * @param assets The asset manager of the game.
+     * @param name   Name of the image, without the extension.
+     */
+    private static void pack(PixmapPacker packer, AssetManager assets, String name) {
+        packer.pack(name, assets.get(name + ".png", Pixmap.class));
+        assets.unload(name + ".png");
+    }
+
+    /**
+     * @param name Name of the image, without the extension.
+     * @return The region of the image in the atlas.
+     */
+    public TextureRegion get(String name) {
+        return atlas.findRegion(name);
+    }
+
+    /**
+     * @param type Type of the food.
+     * @return The region of the food image in the atlas.
+     */
+    public TextureRegion food(int type) {
+        return foods[type];
+    }
+
+    /**
+     * Get a skin from the cache, resolving its regions if nobody is using it.
+     * Every call must be matched by a call to {@link #releaseSkin(SnakeSkin)}.
+     *
+     * @param skin Number of the skin.
+     * @return The skin.
+     */
+    public SnakeSkin acquireSkin(int skin) {
+        if (references[skin] == 0) {
+            skins[skin] = new SnakeSkin(skin, this);
+        }
+        references[skin]++;
+        return skins[skin];
+    }
+
+    /**
+     * Give back a skin taken from the cache.
+     *
+     * @param skin The skin.
+     */
+    public void releaseSkin(SnakeSkin skin) {
+        references[skin.skin]--;
+        if (references[skin.skin] == 0) {
+            skins[skin.skin] = null;
+        }
+    }
+
+    /**
+     * Dispose of the atlas texture.
+     */
+    @Override
+    public void dispose() {
+        atlas.dispose();
+    }
+}
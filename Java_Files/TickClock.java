@@ -0,0 +1,97 @@
+package com.mygdx.game;
+
+/**
+ * Fixed-timestep clock of the simulation.
+ *
+ * The time elapsed between frames is accumulated and converted into a whole number of ticks,
+ * so the game runs at the same speed whatever the frame rate is.
+ * When a frame takes too long, up to maxTicksPerFrame ticks are run to catch up and the rest is dropped
+ * (so a long hiccup does not turn into a burst of moves).
+ */
+public class TickClock {
+
+    // Speed of every match (local, networked or hosted), independent of the frame rate
+    public final static int TICKS_PER_SECOND = 100; // Same pace as the old 9 ms delay per frame
+    public final static int MAX_TICKS_PER_FRAME = 5; // Ticks run at most to catch up after a slow frame (or a late wake-up of the simulation)
+    public final static long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    final long tickNanos; // Duration of one tick
+    final int maxTicksPerFrame; // Maximum number of ticks run in a single frame
+
+    long accumulator; // Time not yet converted into ticks
+    long lastTime = -1; // Time of the last call to advance (-1 = not started)
+
+    long ticks; // Total ticks run
+    long caughtUpTicks; // Ticks run in addition to the first one of a frame
+    long droppedTicks; // Ticks discarded because the frame was too late
+
+    /**
+     * Constructor to initialize the clock.
+     *
+     * @param ticksPerSecond   Number of simulation ticks per second.
+     * @param maxTicksPerFrame Maximum number of ticks run in a single frame.
+     */
+    public TickClock(int ticksPerSecond, int maxTicksPerFrame) {
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.maxTicksPerFrame = maxTicksPerFrame;
+    }
+
+    /**
+     * Advance the clock to the given time.
+     *
+     * @param now Current time in nanoseconds (e.g. System.nanoTime()).
+     * @return Number of ticks to be run in this frame.
+     */
+    public int advance(long now) {
+        if (lastTime < 0) { // First frame: start counting from here
+            lastTime = now;
+            return 0;
+        }
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        int count = (int) Math.min(accumulator / tickNanos, maxTicksPerFrame);
+        accumulator -= count * tickNanos;
+
+        // Drop the ticks that could not be run in this frame
+        if (accumulator >= tickNanos) {
+            droppedTicks += accumulator / tickNanos;
+            accumulator %= tickNanos;
+        }
+
+        if (count > 1) {
+            caughtUpTicks += count - 1;
+        }
+        ticks += count;
+        return count;
+    }
+
+    /**
+     * Fraction of the next tick already elapsed, used to interpolate the drawing between two ticks.
+     *
+     * @return A value between 0 (just ticked) and 1 (about to tick).
+     */
+    public float alpha() {
+        return accumulator / (float) tickNanos;
+    }
+
+    /**
+     * Restart the clock, e.g. when a new match begins.
+     */
+    public void reset() {
+        accumulator = 0;
+        lastTime = -1;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getCaughtUpTicks() {
+        return caughtUpTicks;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+}
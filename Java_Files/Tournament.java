@@ -0,0 +1,274 @@
+package com.mygdx.game;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Plays a large number of headless matches between bots to compare their strategies.
+ *
+ * The matches are split in batches played in parallel by a fork-join pool. Every match creates its own
+ * {@link GameState} and its own controllers, and every batch fills its own {@link Results}, which are merged
+ * when the batches join: the matches share no mutable state, so the results only depend on the seed.
+ *
+ * Every combination of entrants is played in turn (the seats of a match are the digits of its number in base
+ * "number of entrants"), so each entrant plays the same number of matches from each seat.
+ */
+public class Tournament {
+
+    public final static int BATCH_MATCHES = 16; // Matches played by a task without splitting it
+    public final static int SIZE_BUCKETS = 256; // Final sizes counted one by one (the last bucket counts the bigger sizes)
+    public final static int LENGTH_BUCKET_TICKS = 100; // Width of the buckets of the match lengths
+
+    /**
+     * A strategy taking part in the tournament.
+     */
+    public static class Entrant {
+        final String name;
+        final LongFunction<Controller> factory; // Creates the controller of a snake, given the seed of the match
+
+        /**
+         * @param name    Name of the strategy in the report.
+         * @param factory Creates a new controller for each snake played (it receives the seed of the match).
+         */
+        public Entrant(String name, LongFunction<Controller> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * Statistics of the matches of a batch, merged with those of the other batches.
+     */
+    public static class Results {
+        long matches; // Matches played
+        long ticks; // Ticks simulated
+        long draws; // Matches stopped at the maximum number of ticks
+        long[] lengths; // Number of matches by length (buckets of LENGTH_BUCKET_TICKS ticks)
+        final long[] seats, wins, sizeTotal; // For each entrant: snakes played, matches won, sum of the final sizes
+        final long[][] sizes; // For each entrant: number of snakes by final size
+
+        Results(int entrants, int maxTicks) {
+            lengths = new long[maxTicks / LENGTH_BUCKET_TICKS + 1];
+            seats = new long[entrants];
+            wins = new long[entrants];
+            sizeTotal = new long[entrants];
+            sizes = new long[entrants][SIZE_BUCKETS];
+        }
+
+        /**
+         * Add the statistics of another batch.
+         *
+         * @param other The statistics of the other batch.
+         */
+        void merge(Results other) {
+            matches += other.matches;
+            ticks += other.ticks;
+            draws += other.draws;
+            add(lengths, other.lengths);
+            add(seats, other.seats);
+            add(wins, other.wins);
+            add(sizeTotal, other.sizeTotal);
+            for (int i = 0; i < sizes.length; i++) {
+                add(sizes[i], other.sizes[i]);
+            }
+        }
+
+        private static void add(long[] to, long[] from) {
+            for (int i = 0; i < to.length; i++) {
+                to[i] += from[i];
+            }
+        }
+    }
+
+    final Entrant[] entrants;
+    final int columns, rows, players, foods; // Setup of every match
+    final int maxTicks; // Ticks after which a match is stopped as a draw
+    final long seed; // Seed of the first match (match m uses seed + m)
+
+    /**
+     * Constructor of a tournament.
+     *
+     * @param entrants Strategies taking part.
+     * @param columns  Number of columns of the boards.
+     * @param rows     Number of rows of the boards.
+     * @param players  Number of snakes of each match.
+     * @param foods    Number of pieces of food of each match.
+     * @param maxTicks Ticks after which a match is stopped as a draw.
+     * @param seed     Seed of the first match.
+     */
+    public Tournament(Entrant[] entrants, int columns, int rows, int players, int foods, int maxTicks, long seed) {
+        this.entrants = entrants;
+        this.columns = columns;
+        this.rows = rows;
+        this.players = players;
+        this.foods = foods;
+        this.maxTicks = maxTicks;
+        this.seed = seed;
+    }
+
+    /**
+     * Play matches in parallel.
+     *
+     * @param matches Number of matches.
+     * @param pool    Pool of threads playing the matches.
+     * @return Statistics of all the matches.
+     */
+    public Results play(long matches, ForkJoinPool pool) {
+        return pool.invoke(new Batch(0, matches));
+    }
+
+    /**
+     * Matches from..to, split in halves until they are few enough to be played by one task.
+     */
+    class Batch extends RecursiveTask<Results> {
+        private final static long serialVersionUID = 1L; // ForkJoinTask is serializable; the tasks are never serialized
+
+        final long from, to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Results compute() {
+            if (to - from <= BATCH_MATCHES) {
+                Results results = new Results(entrants.length, maxTicks);
+                int[] seats = new int[players];
+                int[] inputs = new int[players];
+                Controller[] controllers = new Controller[players];
+                for (long match = from; match < to; match++) {
+                    playMatch(match, seats, inputs, controllers, results);
+                }
+                return results;
+            }
+            long middle = (from + to) >>> 1;
+            Batch left = new Batch(from, middle);
+            left.fork();
+            Results results = new Batch(middle, to).compute();
+            results.merge(left.join());
+            return results;
+        }
+    }
+
+    /**
+     * Play one match and add its outcome to the statistics.
+     *
+     * @param match       Number of the match.
+     * @param seats       Entrant of each snake (filled here).
+     * @param inputs      Keys of each snake (filled here).
+     * @param controllers Controller of each snake (filled here).
+     * @param results     Statistics of the batch.
+     */
+    void playMatch(long match, int[] seats, int[] inputs, Controller[] controllers, Results results) {
+        long matchSeed = seed + match;
+        long combination = match;
+        for (int i = 0; i < players; i++) {
+            seats[i] = (int) (combination % entrants.length);
+            combination /= entrants.length;
+            controllers[i] = entrants[seats[i]].factory.apply(matchSeed * 31 + i);
+        }
+
+        GameState state = new GameState(columns, rows, players, foods, matchSeed);
+        while (!state.isOver() && state.tick < maxTicks) {
+            for (int i = 0; i < players; i++) {
+                inputs[i] = state.gameEnd[i] == 0 ? controllers[i].input(state, i + 1) : 0;
+            }
+            state.step(inputs);
+        }
+
+        results.matches++;
+        results.ticks += state.tick;
+        results.lengths[(int) (state.tick / LENGTH_BUCKET_TICKS)]++;
+        int winner = state.isOver() ? state.winner() : 0;
+        if (winner == 0) {
+            results.draws++;
+        }
+        for (int i = 0; i < players; i++) {
+            int entrant = seats[i];
+            int size = state.snakes[i].size;
+            results.seats[entrant]++;
+            results.sizeTotal[entrant] += size;
+            results.sizes[entrant][Math.min(size, SIZE_BUCKETS - 1)]++;
+            if (winner == i + 1) {
+                results.wins[entrant]++;
+            }
+        }
+    }
+
+    /**
+     * Build the report of a tournament.
+     *
+     * @param results Statistics of the matches.
+     * @param nanos   Time taken by the matches.
+     * @param threads Number of threads that played them.
+     * @return One line for the throughput, one for the lengths and one per entrant.
+     */
+    public String report(Results results, long nanos, int threads) {
+        StringBuilder report = new StringBuilder();
+        double seconds = nanos / 1e9;
+        report.append(String.format("%d matches of %d snakes on %dx%d in %.2f s on %d threads: %.0f matches/s, %.0f ticks/s",
+                results.matches, players, columns, rows, seconds, threads,
+                results.matches / seconds, results.ticks / seconds));
+        report.append(String.format("%n  Length: %.0f ticks on average, median %d, p90 %d, p99 %d, %d draws (stopped at %d ticks)",
+                results.matches == 0 ? 0 : (double) results.ticks / results.matches,
+                percentile(results.lengths, 0.5) * LENGTH_BUCKET_TICKS, percentile(results.lengths, 0.9) * LENGTH_BUCKET_TICKS,
+                percentile(results.lengths, 0.99) * LENGTH_BUCKET_TICKS, results.draws, maxTicks));
+        for (int i = 0; i < entrants.length; i++) {
+            long seats = results.seats[i];
+            report.append(String.format("%n  %-8s %d snakes, %.1f%% wins, final size %.1f on average, median %d, p90 %d, p99 %d",
+                    entrants[i].name, seats, seats == 0 ? 0 : 100.0 * results.wins[i] / seats,
+                    seats == 0 ? 0 : (double) results.sizeTotal[i] / seats, percentile(results.sizes[i], 0.5),
+                    percentile(results.sizes[i], 0.9), percentile(results.sizes[i], 0.99)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @param histogram Number of values in each bucket.
+     * @param fraction  Fraction of the values.
+     * @return The first bucket at or below which the fraction of the values lies.
+     */
+    static int percentile(long[] histogram, double fraction) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen > 0 && seen >= fraction * total) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Play a tournament between the built-in bots.
+     *
+     * @param args Optional number of matches (default 100000), snakes per match (default 2),
+     *             maximum ticks per match (default 20000) and number of threads (default one per core).
+     */
+    public static void main(String[] args) {
+        long matches = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : GameState.PLAYERS;
+        int maxTicks = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Entrant[] entrants = {
+                new Entrant("greedy", seed -> new GreedyController()),
+                new Entrant("random", RandomController::new),
+                new Entrant("path", seed -> new PathController())
+        };
+        Tournament tournament = new Tournament(entrants, GameState.COLUMNS, GameState.ROWS, players, GameState.FOODS,
+                maxTicks, 1);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Results results = tournament.play(matches, pool);
+        long nanos = System.nanoTime() - start;
+        pool.shutdown();
+        System.out.println(tournament.report(results, nanos, threads));
+    }
+}
@@ -0,0 +1,95 @@
+package com.mygdx.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three buffers shared by a writer thread, which fills them, and a reader thread, which always wants the last
+ * one filled.
+ *
+ * The writer owns one buffer (the back buffer) and the reader another one (the front buffer); the third one is
+ * the last buffer published. Publishing swaps the back buffer with the published one, and taking the latest
+ * buffer swaps the front buffer with it, both with a single atomic exchange: neither thread ever locks nor waits
+ * for the other, and the reader never sees a buffer being written. Buffers published while the reader was busy
+ * are replaced by the next ones (counted as overwritten); when nothing new was published, the reader keeps
+ * its front buffer (counted as repeated).
+ *
+ * @param <T> Type of the buffers, which are reused.
+ */
+public class TripleBuffer<T> {
+
+    final static int FRESH = 4; // Bit added to the published index until the reader takes it
+
+    final Object[] buffers;
+    final AtomicInteger published = new AtomicInteger(1); // Index of the published buffer, with FRESH if not taken yet
+    int back = 2; // Buffer of the writer
+    int front = 0; // Buffer of the reader
+
+    // Statistics, each one written by a single thread
+    long publishes; // Buffers published (writer)
+    long overwritten; // Buffers published again before the reader took them (writer)
+    long taken; // Buffers taken by the reader (reader)
+    long repeated; // Calls to latest() with nothing new published (reader)
+
+    /**
+     * Constructor of the buffers.
+     *
+     * @param first  First buffer (the front buffer until a buffer is published).
+     * @param second Second buffer.
+     * @param third  Third buffer.
+     */
+    public TripleBuffer(T first, T second, T third) {
+        buffers = new Object[]{first, second, third};
+    }
+
+    /**
+     * @return The buffer to be filled by the writer. Only called by the writer.
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Publish the back buffer, once filled, and take another one to fill. Only called by the writer.
+     */
+    public void publish() {
+        int previous = published.getAndSet(back | FRESH);
+        if ((previous & FRESH) != 0) {
+            overwritten++;
+        }
+        back = previous & ~FRESH;
+        publishes++;
+    }
+
+    /**
+     * Take the last buffer published, if there is a new one. Only called by the reader.
+     *
+     * @return The last buffer published, or the same buffer as the last call if none was published since then.
+     */
+    @SuppressWarnings("unchecked")
+    public T latest() {
+        if ((published.get() & FRESH) == 0) {
+            repeated++;
+        } else {
+            front = published.getAndSet(front) & ~FRESH;
+            taken++;
+        }
+        return (T) buffers[front];
+    }
+
+    public long getPublishes() {
+        return publishes;
+    }
+
+    public long getOverwritten() {
+        return overwritten;
+    }
+
+    public long getTaken() {
+        return taken;
+    }
+
+    public long getRepeated() {
+        return repeated;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mygdx.game;
+
+/**
+ * Turns asked by a player, waiting for the moves of the snake.
+ *
+ * The keys are pushed when they are pressed (not polled at each frame), with the time they were pressed.
+ * The snake only moves once every few ticks, so the turns are given to the match one per move, in the
+ * order they were pressed: two quick turns between two moves (e.g. up then left to make a U-turn) are
+ * both taken instead of the second one replacing the first. A turn is checked against the last move of
+ * the snake when it is taken, and dropped if it would go straight on or turn back.
+ *
+ * The queue is not thread-safe: keys are pushed and turns taken by the thread of the match (see {@link SimulationThread}).
+ */
+public class TurnQueue {
+
+    public final static int CAPACITY = 8; // Turns kept at most (the oldest ones are kept when it is full)
+
+    final int[] masks = new int[CAPACITY]; // Key of each turn (see Snake.UP)
+    final long[] times = new long[CAPACITY]; // Time each key was pressed (System.nanoTime())
+    int first, count;
+
+    // Statistics
+    long taken; // Turns given to the match
+    long dropped; // Turns dropped (queue full, or no change of direction)
+    long delayNanosTotal, delayNanosMax; // Time from a key press to the tick that takes the turn
+
+    /**
+     * Add a turn after the turns already waiting.
+     *
+     * @param mask Key of the turn (see {@link Snake#UP}).
+     * @param time Time the key was pressed (System.nanoTime()).
+     */
+    public void push(int mask, long time) {
+        if (count == CAPACITY || count > 0 && masks[(first + count - 1) % CAPACITY] == mask) { // Full, or a repeated key
+            dropped++;
+            return;
+        }
+        int last = (first + count) % CAPACITY;
+        masks[last] = mask;
+        times[last] = time;
+        count++;
+    }
+
+    /**
+     * Take the next turn if the snake moves in the next tick.
+     *
+     * @param snake The snake of the player, before the tick.
+     * @param now   Time of the tick (System.nanoTime()).
+     * @return Mask of the key of the turn, or 0 (the snake keeps its direction).
+     */
+    public int next(Snake snake, long now) {
+        if (!Controller.movesNextTick(snake)) {
+            return 0;
+        }
+        int lastDx = snake.getLastMoveDx(), lastDy = snake.getLastMoveDy();
+        while (count > 0) {
+            int mask = masks[first];
+            long time = times[first];
+            first = (first + 1) % CAPACITY;
+            count--;
+
+            int dx = mask == Snake.LEFT ? -1 : mask == Snake.RIGHT ? 1 : 0;
+            int dy = mask == Snake.DOWN ? -1 : mask == Snake.UP ? 1 : 0;
+            if (dx * lastDx + dy * lastDy != 0) { // Straight on or back: not a turn
+                dropped++;
+                continue;
+            }
+            taken++;
+            long delay = now - time;
+            delayNanosTotal += delay;
+            delayNanosMax = Math.max(delayNanosMax, delay);
+            return mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Forget the turns waiting (e.g. when a new match starts).
+     */
+    public void clear() {
+        first = 0;
+        count = 0;
+    }
+
+    /**
+     * @return Turns taken, turns dropped and the delay between a key press and its tick.
+     */
+    public String report() {
+        return String.format("%d turns, %d dropped, %.1f ms from key to tick on average (%.1f ms max)",
+                taken, dropped, taken == 0 ? 0 : delayNanosTotal / 1e6 / taken, delayNanosMax / 1e6);
+    }
+}